@@ -0,0 +1,95 @@
+package com.autopilot.backend.benchmark;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.autopilot.backend.config.APIConfig;
+import com.autopilot.backend.service.ApiExecutor;
+import com.autopilot.backend.service.HostCircuitBreakers;
+import com.autopilot.backend.service.ResponseCapture;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/** API task round trips against an embedded local HTTP server. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiExecutorBenchmark {
+
+    private static final byte[] RESPONSE = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ApiExecutor apiExecutor;
+    private String url;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(RESPONSE);
+            }
+        });
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        apiExecutor = new ApiExecutor(10, 60, 3, 200, 5000,
+                new HostCircuitBreakers(5, 30, new SimpleMeterRegistry()),
+                new ResponseCapture(1 << 20, 1L << 30, false, "", 2000, new SimpleMeterRegistry()),
+                new SimpleMeterRegistry());
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/deploy";
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private APIConfig request() {
+        APIConfig config = new APIConfig();
+        config.setUrl(url);
+        config.setMethod("POST");
+        config.setBody(Map.of("task", "deploy"));
+        return config;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int execute() {
+        return apiExecutor.execute(request()).getResponseCode();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int executeAsync() {
+        return apiExecutor.executeAsync(request()).join().getResponseCode();
+    }
+}
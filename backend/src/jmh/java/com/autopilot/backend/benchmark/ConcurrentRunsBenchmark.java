@@ -0,0 +1,159 @@
+package com.autopilot.backend.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.autopilot.backend.config.APIConfig;
+import com.autopilot.backend.config.DBConfig;
+import com.autopilot.backend.config.ExecutorConfig;
+import com.autopilot.backend.config.ServerConfig;
+import com.autopilot.backend.loader.ConfigLoader;
+import com.autopilot.backend.loader.ExecutionPlan;
+import com.autopilot.backend.service.ApiExecutor;
+import com.autopilot.backend.service.Cancellation;
+import com.autopilot.backend.service.HostCircuitBreakers;
+import com.autopilot.backend.service.ResponseCapture;
+import com.autopilot.backend.service.ShellExecutor;
+import com.autopilot.backend.service.ShellFanOutExecutor;
+import com.autopilot.backend.service.SqlExecutor;
+import com.autopilot.backend.service.TaskListener;
+import com.autopilot.backend.service.TaskMetrics;
+import com.autopilot.backend.service.TaskProcessorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * How many concurrent runs one instance sustains on platform and on virtual
+ * threads. Every run is a pre and a post phase of four tasks each; SQL and
+ * shell tasks block their thread for {@value #TASK_MILLIS} ms as they do while
+ * waiting on JDBC or SSH, API tasks complete asynchronously after the same
+ * delay. Run and task pools are sized so every run can progress at once, as
+ * {@code autopilot.runs.max-concurrent} and {@code autopilot.tasks.max-parallel}
+ * would be raised for that load.
+ * <p>
+ * The score is the time to finish {@code runs} runs submitted together, so
+ * sustained runs per second are {@code runs / score}; the ideal score is two
+ * phases of {@value #TASK_MILLIS} ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ConcurrentRunsBenchmark {
+
+    static final long TASK_MILLIS = 50;
+    private static final int TASKS_PER_PHASE = 4;
+
+    @Param({ "platform", "virtual" })
+    public String threads;
+
+    @Param({ "100", "1000" })
+    public int runs;
+
+    private ExecutorService runExecutor;
+    private ExecutorService taskExecutor;
+    private ExecutorService hostExecutor;
+    private ScheduledExecutorService timeoutScheduler;
+    private TaskProcessorService processor;
+    private List<ExecutionPlan> plans;
+
+    @Setup
+    public void setUp() throws Exception {
+        boolean virtualThreads = threads.equals("virtual");
+        ExecutorConfig executors = new ExecutorConfig();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        runExecutor = executors.runExecutor(runs, runs, virtualThreads, registry);
+        taskExecutor = executors.taskExecutor(runs * TASKS_PER_PHASE, virtualThreads, registry);
+        hostExecutor = executors.hostExecutor(1, virtualThreads, registry);
+        timeoutScheduler = executors.timeoutScheduler();
+
+        SqlExecutor sqlExecutor = new SqlExecutor(null, 500, 5000) {
+            @Override
+            public String execute(String filePath, DBConfig config, Cancellation cancellation) {
+                block();
+                return "1 statements, 1 rows affected";
+            }
+        };
+        ShellExecutor shellExecutor = new ShellExecutor(null, null, 0) {
+            @Override
+            public String runShellFromConfig(ServerConfig config, Consumer<String> outputSink,
+                    Cancellation cancellation) {
+                block();
+                return "✅ Shell script executed successfully.";
+            }
+        };
+        ApiExecutor apiExecutor = new ApiExecutor(10, 60, 1, 200, 5000,
+                new HostCircuitBreakers(5, 30, registry),
+                new ResponseCapture(1 << 20, 1L << 30, false, "", 2000, registry), registry) {
+            @Override
+            public CompletableFuture<APIConfig> executeAsync(APIConfig apiConfig, Cancellation cancellation) {
+                return CompletableFuture.supplyAsync(() -> {
+                    apiConfig.setResponseCode(200);
+                    return apiConfig;
+                }, CompletableFuture.delayedExecutor(TASK_MILLIS, TimeUnit.MILLISECONDS));
+            }
+        };
+        processor = new TaskProcessorService(sqlExecutor, shellExecutor,
+                new ShellFanOutExecutor(shellExecutor, hostExecutor, 10), apiExecutor, taskExecutor,
+                new TaskMetrics(registry), timeoutScheduler);
+
+        // One plan per run, as every submission compiles its own
+        ObjectMapper mapper = new ObjectMapper();
+        plans = new ArrayList<>(runs);
+        for (int i = 0; i < runs; i++) {
+            plans.add(ConfigLoader.compile(mapper.readTree(Fixtures.taskFile(TASKS_PER_PHASE * 2))));
+        }
+    }
+
+    private static void block() {
+        try {
+            Thread.sleep(TASK_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        runExecutor.shutdownNow();
+        taskExecutor.shutdownNow();
+        hostExecutor.shutdownNow();
+        timeoutScheduler.shutdownNow();
+    }
+
+    @Benchmark
+    public int concurrentRuns() throws Exception {
+        List<Future<String>> submitted = new ArrayList<>(runs);
+        for (ExecutionPlan plan : plans) {
+            submitted.add(runExecutor.submit(() -> processor.processTasks(plan, "pre", TaskListener.NONE)
+                    + processor.processTasks(plan, "post", TaskListener.NONE)));
+        }
+        int length = 0;
+        for (Future<String> run : submitted) {
+            length += run.get().length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,47 @@
+package com.autopilot.backend.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.autopilot.backend.loader.ConfigLoader;
+import com.autopilot.backend.loader.ExecutionPlan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/** Parsing and compiling large task files into an execution plan. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigLoaderBenchmark {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Param({ "100", "5000" })
+    public int tasks;
+
+    private byte[] config;
+
+    @Setup
+    public void setUp() {
+        config = Fixtures.taskFile(tasks).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ExecutionPlan compile() throws Exception {
+        return ConfigLoader.compile(mapper.readTree(config));
+    }
+}
@@ -0,0 +1,53 @@
+package com.autopilot.backend.benchmark;
+
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * A config with {@code tasks} tasks spread over pre and post, cycling
+     * through the three task types. Every tenth task depends on the one
+     * before it; the rest only declare an empty dependency list.
+     */
+    static String taskFile(int tasks) {
+        StringBuilder json = new StringBuilder("{");
+        appendPhase(json, "pre", tasks / 2);
+        json.append(',');
+        appendPhase(json, "post", tasks - tasks / 2);
+        return json.append('}').toString();
+    }
+
+    private static void appendPhase(StringBuilder json, String phase, int tasks) {
+        json.append('"').append(phase).append("\":[");
+        for (int i = 0; i < tasks; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            String id = phase + "-" + i;
+            json.append("{\"id\":\"").append(id).append("\",\"dependsOn\":[");
+            if (i > 0 && i % 10 == 0) {
+                json.append('"').append(phase).append('-').append(i - 1).append('"');
+            }
+            json.append("],");
+            switch (i % 3) {
+                case 0:
+                    json.append("\"type\":\"db\",\"config\":{\"dbUrl\":\"jdbc:h2:mem:").append(id)
+                            .append("\",\"dbUsername\":\"sa\",\"dbPassword\":\"\",\"sqlFilepath\":\"")
+                            .append(id).append(".sql\"}}");
+                    break;
+                case 1:
+                    json.append("\"type\":\"shell\",\"config\":{\"serverIp\":\"10.0.0.").append(i % 250)
+                            .append("\",\"serverUsername\":\"deploy\",\"shellScriptFilepath\":\"")
+                            .append(id).append(".sh\",\"privateKeyPemFilepath\":\"id_rsa\"}}");
+                    break;
+                default:
+                    json.append("\"type\":\"api\",\"config\":{\"url\":\"http://localhost/").append(id)
+                            .append("\",\"method\":\"POST\",\"headers\":{\"Accept\":\"application/json\"},")
+                            .append("\"body\":{\"task\":\"").append(id).append("\"}}}");
+                    break;
+            }
+        }
+        json.append(']');
+    }
+}
@@ -0,0 +1,75 @@
+package com.autopilot.backend.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.autopilot.backend.config.DBConfig;
+import com.autopilot.backend.service.DataSourceRegistry;
+import com.autopilot.backend.service.SqlExecutor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/** SQL scripts of mixed DML run against an in-memory H2 database. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlExecutorBenchmark {
+
+    @Param({ "1000" })
+    public int statements;
+
+    @Param({ "1", "500" })
+    public int batchSize;
+
+    private Path script;
+    private DataSourceRegistry registry;
+    private SqlExecutor sqlExecutor;
+    private DBConfig config;
+
+    @Setup
+    public void setUp() throws Exception {
+        StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS items (id INT PRIMARY KEY, name VARCHAR(50));\n")
+                .append("DELETE FROM items;\n");
+        for (int i = 0; i < statements; i++) {
+            sql.append("INSERT INTO items VALUES (").append(i).append(", 'item; ").append(i).append("');\n");
+        }
+        sql.append("UPDATE items SET name = 'updated' WHERE MOD(id, 2) = 0;\n");
+        script = Files.createTempFile("benchmark", ".sql");
+        Files.writeString(script, sql);
+
+        registry = new DataSourceRegistry(2, 5000, 600000, 600000, new SimpleMeterRegistry());
+        sqlExecutor = new SqlExecutor(registry, batchSize, 5000);
+        config = new DBConfig();
+        config.setDbUrl("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        config.setDbUsername("sa");
+        config.setDbPassword("");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        registry.close();
+        Files.deleteIfExists(script);
+    }
+
+    @Benchmark
+    public String execute() throws Exception {
+        return sqlExecutor.execute(script.toString(), config);
+    }
+}
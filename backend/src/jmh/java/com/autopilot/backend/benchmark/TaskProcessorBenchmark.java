@@ -0,0 +1,124 @@
+package com.autopilot.backend.benchmark;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.autopilot.backend.config.APIConfig;
+import com.autopilot.backend.config.DBConfig;
+import com.autopilot.backend.config.ServerConfig;
+import com.autopilot.backend.loader.ConfigLoader;
+import com.autopilot.backend.loader.ExecutionPlan;
+import com.autopilot.backend.service.ApiExecutor;
+import com.autopilot.backend.service.Cancellation;
+import com.autopilot.backend.service.HostCircuitBreakers;
+import com.autopilot.backend.service.ResponseCapture;
+import com.autopilot.backend.service.ShellExecutor;
+import com.autopilot.backend.service.ShellFanOutExecutor;
+import com.autopilot.backend.service.SqlExecutor;
+import com.autopilot.backend.service.TaskListener;
+import com.autopilot.backend.service.TaskMetrics;
+import com.autopilot.backend.service.TaskProcessorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Scheduling overhead of {@link TaskProcessorService}: executors are stubbed
+ * to return immediately, so this measures graph scheduling, result collection
+ * and output formatting only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskProcessorBenchmark {
+
+    @Param({ "100", "1000" })
+    public int tasks;
+
+    @Param({ "8" })
+    public int maxParallel;
+
+    private ExecutorService taskExecutor;
+    private ExecutorService hostExecutor;
+    private ScheduledExecutorService timeoutScheduler;
+    private TaskProcessorService processor;
+    private ExecutionPlan plan;
+
+    @Setup
+    public void setUp() throws Exception {
+        taskExecutor = Executors.newFixedThreadPool(maxParallel);
+        hostExecutor = Executors.newSingleThreadExecutor();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy(true);
+        timeoutScheduler = scheduler;
+
+        SqlExecutor sqlExecutor = new SqlExecutor(null, 500, 5000) {
+            @Override
+            public String execute(String filePath, DBConfig config, Cancellation cancellation) {
+                return "1 statements, 1 rows affected, 1000.0 statements/sec";
+            }
+        };
+        ShellExecutor shellExecutor = new ShellExecutor(null, null, 0) {
+            @Override
+            public String runShellFromConfig(ServerConfig config, Consumer<String> outputSink,
+                    Cancellation cancellation) {
+                outputSink.accept("done");
+                return "✅ Shell script executed successfully.";
+            }
+        };
+        ApiExecutor apiExecutor = new ApiExecutor(10, 60, 3, 200, 5000,
+                new HostCircuitBreakers(5, 30, new SimpleMeterRegistry()),
+                new ResponseCapture(1 << 20, 1L << 30, false, "", 2000, new SimpleMeterRegistry()),
+                new SimpleMeterRegistry()) {
+            @Override
+            public CompletableFuture<APIConfig> executeAsync(APIConfig apiConfig, Cancellation cancellation) {
+                apiConfig.setResponseCode(200);
+                return CompletableFuture.completedFuture(apiConfig);
+            }
+        };
+
+        processor = new TaskProcessorService(sqlExecutor, shellExecutor,
+                new ShellFanOutExecutor(shellExecutor, hostExecutor, 10), apiExecutor, taskExecutor,
+                new TaskMetrics(new SimpleMeterRegistry()), timeoutScheduler);
+        // Production defaults, so every task arms and cancels its timeout timer
+        ReflectionTestUtils.setField(processor, "dbTimeoutSeconds", 3600L);
+        ReflectionTestUtils.setField(processor, "shellTimeoutSeconds", 3600L);
+        ReflectionTestUtils.setField(processor, "apiTimeoutSeconds", 60L);
+        plan = ConfigLoader.compile(new ObjectMapper().readTree(Fixtures.taskFile(tasks * 2)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        taskExecutor.shutdownNow();
+        hostExecutor.shutdownNow();
+        timeoutScheduler.shutdownNow();
+    }
+
+    @Benchmark
+    public String processTasks() throws Exception {
+        return processor.processTasks(plan, "pre", TaskListener.NONE);
+    }
+}
@@ -2,16 +2,25 @@ package com.autopilot.backend.config;
 
 import java.util.Map;
 
+import com.autopilot.backend.service.ApiResponseBody;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class APIConfig {
 
     private String url;
     private String method;
     private Map<String, String> headers;
     private Object body;
+    private Integer timeoutSeconds; // whole task with its retries, defaults to enough for every attempt
+    private Integer attemptTimeoutSeconds; // each attempt, defaults to autopilot.api.attempt-timeout-seconds
+    private Integer connectTimeoutSeconds; // defaults to autopilot.api.connect-timeout-seconds
+    private Integer maxAttempts; // defaults to autopilot.api.retry.max-attempts, only idempotent methods retry
+    private Map<String, String> extract; // run variable name -> JSON pointer into the response body
 
     // Response fields
     private int responseCode;
-    private String responseMessage;
+    private String responseMessage; // bounded preview of the body
+    private ApiResponseBody responseBody;
 
     // Getters and Setters
     public String getUrl() {
@@ -46,6 +55,46 @@ public class APIConfig {
         this.body = body;
     }
 
+    public Integer getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(Integer timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public Integer getAttemptTimeoutSeconds() {
+        return attemptTimeoutSeconds;
+    }
+
+    public void setAttemptTimeoutSeconds(Integer attemptTimeoutSeconds) {
+        this.attemptTimeoutSeconds = attemptTimeoutSeconds;
+    }
+
+    public Integer getConnectTimeoutSeconds() {
+        return connectTimeoutSeconds;
+    }
+
+    public void setConnectTimeoutSeconds(Integer connectTimeoutSeconds) {
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+    }
+
+    public Integer getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(Integer maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Map<String, String> getExtract() {
+        return extract;
+    }
+
+    public void setExtract(Map<String, String> extract) {
+        this.extract = extract;
+    }
+
     // Response Getters and Setters
     public int getResponseCode() {
         return responseCode;
@@ -62,4 +111,14 @@ public class APIConfig {
     public void setResponseMessage(String responseMessage) {
         this.responseMessage = responseMessage;
     }
+
+    @JsonIgnore
+    public ApiResponseBody getResponseBody() {
+        return responseBody;
+    }
+
+    @JsonIgnore
+    public void setResponseBody(ApiResponseBody responseBody) {
+        this.responseBody = responseBody;
+    }
 }
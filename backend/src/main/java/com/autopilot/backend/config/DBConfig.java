@@ -6,6 +6,10 @@ public class DBConfig {
     private String dbUsername;
     private String dbPassword;
     private String sqlFilepath;
+    private Integer batchSize; // DML statements per JDBC batch, defaults to autopilot.sql.batch-size
+    private Integer commitInterval; // statements per commit, defaults to autopilot.sql.commit-interval
+    private Integer timeoutSeconds; // whole script, defaults to autopilot.tasks.timeout.db-seconds
+    private Boolean continueOnError; // skip failed statements, defaults to autopilot.sql.continue-on-error
 
     // Getters and Setters
 
@@ -40,4 +44,36 @@ public class DBConfig {
     public void setSqlFilepath(String sqlFilepath) {
         this.sqlFilepath = sqlFilepath;
     }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Integer getCommitInterval() {
+        return commitInterval;
+    }
+
+    public void setCommitInterval(Integer commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+
+    public Integer getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(Integer timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public Boolean getContinueOnError() {
+        return continueOnError;
+    }
+
+    public void setContinueOnError(Boolean continueOnError) {
+        this.continueOnError = continueOnError;
+    }
 }
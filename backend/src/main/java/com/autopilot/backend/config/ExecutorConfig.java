@@ -0,0 +1,172 @@
+package com.autopilot.backend.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Executors for runs and tasks. With {@code spring.threads.virtual.enabled=true}
+ * (which also moves Tomcat and scheduling onto virtual threads), the run, task,
+ * host and event pools become {@link VirtualThreadExecutor}s: a new virtual
+ * thread per task, never pooled. Their sizes become semaphore limits that still
+ * bound how much work runs at once, so they keep protecting the databases and
+ * hosts tasks talk to, but a task blocked on SSH, JDBC or HTTP no longer holds a
+ * platform thread and the limits can be raised cheaply.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Bounded pool that runs the individual tasks of a phase. Tasks are only
+     * submitted once their dependencies have finished, so no worker ever blocks
+     * waiting on another task.
+     */
+    @Bean(name = "taskExecutor", destroyMethod = "shutdown")
+    public ExecutorService taskExecutor(@Value("${autopilot.tasks.max-parallel:8}") int maxParallel,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            MeterRegistry meterRegistry) {
+        if (virtualThreads) {
+            return virtualExecutor("autopilot-task-", maxParallel, -1, "tasks", meterRegistry);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxParallel, maxParallel,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("autopilot-task-"));
+        executor.allowCoreThreadTimeOut(true);
+        bindMetrics(executor, "tasks", meterRegistry);
+        return executor;
+    }
+
+    /**
+     * Runs whole submitted configs off the servlet threads. The queue is bounded
+     * so an overloaded instance rejects new submissions instead of piling them up.
+     */
+    @Bean(name = "runExecutor", destroyMethod = "shutdown")
+    public ExecutorService runExecutor(@Value("${autopilot.runs.max-concurrent:4}") int maxConcurrent,
+            @Value("${autopilot.runs.queue-capacity:500}") int queueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            MeterRegistry meterRegistry) {
+        if (virtualThreads) {
+            return virtualExecutor("autopilot-run-", maxConcurrent, queueCapacity, "runs", meterRegistry);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxConcurrent, maxConcurrent,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("autopilot-run-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        bindMetrics(executor, "runs", meterRegistry);
+        return executor;
+    }
+
+    /**
+     * Runs the per-host work of shell fan-outs. Kept apart from the task pool so
+     * a task waiting on its hosts never starves the hosts of threads.
+     */
+    @Bean(name = "hostExecutor", destroyMethod = "shutdown")
+    public ExecutorService hostExecutor(@Value("${autopilot.shell.fan-out-threads:32}") int threads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            MeterRegistry meterRegistry) {
+        if (virtualThreads) {
+            return virtualExecutor("autopilot-host-", threads, -1, "hosts", meterRegistry);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("autopilot-host-"));
+        executor.allowCoreThreadTimeOut(true);
+        bindMetrics(executor, "hosts", meterRegistry);
+        return executor;
+    }
+
+    /**
+     * Sends run events to Server-Sent Events clients, so a slow client only ever
+     * holds up its own sender and never a task thread. Each client has at most
+     * one send in flight, so the queue is bounded by the number of clients.
+     */
+    @Bean(name = "eventExecutor", destroyMethod = "shutdown")
+    public ExecutorService eventExecutor(@Value("${autopilot.runs.sse-threads:8}") int threads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            MeterRegistry meterRegistry) {
+        if (virtualThreads) {
+            return virtualExecutor("autopilot-events-", threads, -1, "events", meterRegistry);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("autopilot-events-"));
+        executor.allowCoreThreadTimeOut(true);
+        bindMetrics(executor, "events", meterRegistry);
+        return executor;
+    }
+
+    /**
+     * CPU-bound pool for BCrypt hashing and verification, sized to the cores.
+     * The short queue makes a login burst fail fast instead of tying up every
+     * request thread. Always platform threads: hashing never blocks, so virtual
+     * threads would gain nothing.
+     */
+    @Bean(name = "passwordExecutor", destroyMethod = "shutdown")
+    public ExecutorService passwordExecutor(@Value("${autopilot.auth.hash-threads:0}") int threads,
+            @Value("${autopilot.auth.hash-queue-capacity:64}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                size, size,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("autopilot-password-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        bindMetrics(executor, "passwords", meterRegistry);
+        return executor;
+    }
+
+    /**
+     * Fires task timeouts. Timers are cancelled as soon as their task ends, so
+     * they are removed from the queue right away instead of lingering until due.
+     * The work done on expiry only signals cancellation, one thread is plenty.
+     */
+    @Bean(name = "timeoutScheduler", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService timeoutScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                new CustomizableThreadFactory("autopilot-timeout-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    // maxWaiting < 0 lets any number of tasks wait
+    private static ExecutorService virtualExecutor(String prefix, int maxRunning, int maxWaiting, String name,
+            MeterRegistry meterRegistry) {
+        VirtualThreadExecutor executor = new VirtualThreadExecutor(prefix, maxRunning, maxWaiting);
+        // Same meters as the platform pools, which ExecutorServiceMetrics cannot read from this executor
+        Gauge.builder("executor.active", executor, VirtualThreadExecutor::getActiveCount)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("executor.queued", executor, VirtualThreadExecutor::getQueuedCount)
+                .tag("name", name)
+                .register(meterRegistry);
+        return executor;
+    }
+
+    // Queue depth and active threads, as executor.queued / executor.active{name=...}
+    private static void bindMetrics(ThreadPoolExecutor executor, String name, MeterRegistry meterRegistry) {
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(meterRegistry);
+    }
+}
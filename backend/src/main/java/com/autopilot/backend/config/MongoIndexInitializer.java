@@ -0,0 +1,72 @@
+package com.autopilot.backend.config;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import com.autopilot.backend.model.RunCheckpoint;
+import com.autopilot.backend.model.RunRecord;
+import com.autopilot.backend.model.Subscription;
+import com.autopilot.backend.model.TaskFingerprint;
+import com.autopilot.backend.model.User;
+
+/**
+ * Creates the indexes declared on the Mongo documents ({@code @Indexed},
+ * {@code @CompoundIndex}) once the application is up. Runs in the background
+ * so an unreachable database delays nothing, and a failing index (for example
+ * a unique index over existing duplicates) is logged without stopping the others.
+ */
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(User.class, Subscription.class,
+            RunRecord.class, TaskFingerprint.class, RunCheckpoint.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${autopilot.mongo.ensure-indexes:true}")
+    private boolean enabled;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::ensureIndexes, "mongo-index-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(
+                mongoTemplate.getConverter().getMappingContext());
+
+        for (Class<?> document : INDEXED_DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(document);
+            for (IndexDefinition index : resolver.resolveIndexFor(document)) {
+                try {
+                    String name = indexOps.createIndex(index);
+                    logger.info("✅ Mongo index {} ready on {}", name, document.getSimpleName());
+                } catch (RuntimeException e) {
+                    logger.error("❌ Could not create Mongo index {} on {}: {}", index.getIndexKeys().toJson(),
+                            document.getSimpleName(), e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package com.autopilot.backend.config;
 
+import java.util.List;
+
 public class ServerConfig {
 
     private String serverIp;
+    private Integer serverPort;
     private String serverUsername;
     private String shellScriptFilepath;
     private String privateKeyPemFilepath;
     private String PemFilePassword;
 
+    // Fan-out: run the same script on several hosts instead of serverIp alone
+    private List<String> hosts;
+    private String inventoryFilepath;
+    private Integer maxParallelHosts;
+    private Integer canaryHosts;
+    private Integer waveSize;
+    private Integer maxFailures;
+    private Integer timeoutSeconds; // whole task, all hosts included, defaults to autopilot.tasks.timeout.shell-seconds
+
 
    
 
@@ -21,6 +33,14 @@ public class ServerConfig {
         this.serverIp = serverIp;
     }
 
+    public Integer getServerPort() {
+        return serverPort;
+    }
+
+    public void setServerPort(Integer serverPort) {
+        this.serverPort = serverPort;
+    }
+
     public String getServerUsername() {
         return serverUsername;
     }
@@ -52,4 +72,60 @@ public class ServerConfig {
     public void setPemFilePassword(String pemFilePassword) {
         PemFilePassword = pemFilePassword;
     }
+
+    public List<String> getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(List<String> hosts) {
+        this.hosts = hosts;
+    }
+
+    public String getInventoryFilepath() {
+        return inventoryFilepath;
+    }
+
+    public void setInventoryFilepath(String inventoryFilepath) {
+        this.inventoryFilepath = inventoryFilepath;
+    }
+
+    public Integer getMaxParallelHosts() {
+        return maxParallelHosts;
+    }
+
+    public void setMaxParallelHosts(Integer maxParallelHosts) {
+        this.maxParallelHosts = maxParallelHosts;
+    }
+
+    public Integer getCanaryHosts() {
+        return canaryHosts;
+    }
+
+    public void setCanaryHosts(Integer canaryHosts) {
+        this.canaryHosts = canaryHosts;
+    }
+
+    public Integer getWaveSize() {
+        return waveSize;
+    }
+
+    public void setWaveSize(Integer waveSize) {
+        this.waveSize = waveSize;
+    }
+
+    public Integer getMaxFailures() {
+        return maxFailures;
+    }
+
+    public void setMaxFailures(Integer maxFailures) {
+        this.maxFailures = maxFailures;
+    }
+
+    public Integer getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(Integer timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
 }
@@ -0,0 +1,109 @@
+package com.autopilot.backend.config;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts a new virtual thread for every task and limits how many run at once
+ * with a semaphore, instead of pooling virtual threads behind a fixed-size
+ * pool. Tasks over the limit wait for a permit on their own thread, in
+ * submission order. With a {@code maxWaiting} limit, a task is rejected when
+ * that many are already waiting, as a pool with a bounded queue would do.
+ */
+class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private final ExecutorService threads;
+    private final Semaphore running;
+    // Running plus waiting tasks; null when any number may wait
+    private final Semaphore admitted;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    VirtualThreadExecutor(String prefix, int maxRunning, int maxWaiting) {
+        this.threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory());
+        this.running = new Semaphore(maxRunning, true);
+        this.admitted = maxWaiting >= 0 ? new Semaphore(maxRunning + maxWaiting) : null;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (admitted != null && !admitted.tryAcquire()) {
+            throw new RejectedExecutionException("Task rejected: " + waiting.get() + " tasks already waiting");
+        }
+        waiting.incrementAndGet();
+        try {
+            threads.execute(() -> run(command));
+        } catch (RejectedExecutionException e) {
+            waiting.decrementAndGet();
+            release();
+            throw e;
+        }
+    }
+
+    private void run(Runnable command) {
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            // Shut down while waiting: the task never starts
+            waiting.decrementAndGet();
+            release();
+            return;
+        }
+        waiting.decrementAndGet();
+        active.incrementAndGet();
+        try {
+            command.run();
+        } finally {
+            active.decrementAndGet();
+            running.release();
+            release();
+        }
+    }
+
+    private void release() {
+        if (admitted != null) {
+            admitted.release();
+        }
+    }
+
+    /** Tasks running now. */
+    int getActiveCount() {
+        return active.get();
+    }
+
+    /** Tasks waiting for one of the running ones to finish. */
+    int getQueuedCount() {
+        return waiting.get();
+    }
+
+    @Override
+    public void shutdown() {
+        threads.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return threads.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return threads.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return threads.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return threads.awaitTermination(timeout, unit);
+    }
+}
@@ -6,7 +6,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -14,7 +13,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.autopilot.backend.model.User;
 import com.autopilot.backend.repository.UserRepository;
+import com.autopilot.backend.service.CachedUserDetailsService;
 import com.autopilot.backend.service.EmailService;
+import com.autopilot.backend.service.PasswordHasher;
 import com.autopilot.backend.util.JwtUtil;
 
 
@@ -28,9 +29,15 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private CachedUserDetailsService userDetailsService;
+
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private PasswordHasher passwordHasher;
+
     @Value("${app.reset.baseurl}")
     private String resetBaseUrl;
 
@@ -67,8 +74,9 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "User not found."));
         }
 
-        user.setPassword(new BCryptPasswordEncoder().encode(newPassword));
+        user.setPassword(passwordHasher.encode(newPassword));
         userRepository.save(user);
+        userDetailsService.evict(email);
 
         return ResponseEntity.ok(Map.of("message", "Password updated successfully."));
     }
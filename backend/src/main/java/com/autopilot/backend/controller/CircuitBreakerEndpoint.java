@@ -0,0 +1,26 @@
+package com.autopilot.backend.controller;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.autopilot.backend.service.HostCircuitBreakers;
+
+/** {@code /actuator/circuitbreakers}: which upstream hosts of API tasks are failing fast. */
+@Component
+@Endpoint(id = "circuitbreakers")
+public class CircuitBreakerEndpoint {
+
+    private final HostCircuitBreakers breakers;
+
+    public CircuitBreakerEndpoint(HostCircuitBreakers breakers) {
+        this.breakers = breakers;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Map<String, Object>>> breakers() {
+        return Map.of("hosts", breakers.snapshot());
+    }
+}
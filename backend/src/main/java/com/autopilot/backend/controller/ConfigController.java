@@ -3,15 +3,13 @@ package com.autopilot.backend.controller;
 import com.autopilot.backend.model.User;
 import com.autopilot.backend.repository.UserRepository;
 import com.autopilot.backend.service.AuthService;
-import com.autopilot.backend.service.TaskProcessorService;
+import com.autopilot.backend.service.GoogleTokenVerifier;
+import com.autopilot.backend.service.RunService;
 import com.autopilot.backend.util.JwtUtil;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.jackson2.JacksonFactory;
 
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,9 +17,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.*;
 import java.nio.file.*;
+import java.security.Principal;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
@@ -32,15 +32,15 @@ import java.util.Map;
 public class ConfigController {
 
     @Autowired
-    private TaskProcessorService taskProcessorService;
+    private RunService runService;
     @Autowired
     private AuthService authService;
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private JwtUtil jwtUtil;
-    @Value("${google.client.id}")
-    private String googleClientId;
+    @Autowired
+    private GoogleTokenVerifier googleTokenVerifier;
     @Value("${spring.profiles.active:}")
     private String activeProfile;
 
@@ -48,30 +48,9 @@ public class ConfigController {
     return !"dev".equals(activeProfile);
 }
     @PostMapping("/auth/run-config")
-    public ResponseEntity<String> runConfig(@RequestBody Map<String, Object> configMap) {
+    public ResponseEntity<String> runConfig(@RequestBody Map<String, Object> configMap, Principal principal) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(configMap);
-            Path filePath = Paths.get("config.json");
-            Files.write(filePath, json.getBytes());
-            String configPath = filePath.toAbsolutePath().toString();
-            StringBuilder output = new StringBuilder();
-
-            if (configMap.containsKey("basic")) {
-                output.append("🚀 Running Basic Tasks...\n");
-                String basicOutput = taskProcessorService.processTasks(configPath, "basic");
-                output.append(basicOutput).append("✅ Basic tasks completed.\n");
-            } else {
-                output.append("🚀 Running Pre Tasks...\n");
-                String preOutput = taskProcessorService.processTasks(configPath, "pre");
-                output.append(preOutput).append("✅ Pre tasks completed.\n\n");
-
-                output.append("🚀 Running Post Tasks...\n");
-                String postOutput = taskProcessorService.processTasks(configPath, "post");
-                output.append(postOutput).append("✅ Post tasks completed.\n");
-            }
-
-            return ResponseEntity.ok(output.toString());
+            return ResponseEntity.ok(runService.execute(configMap, principal != null ? principal.getName() : null));
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -104,9 +83,10 @@ public class ConfigController {
     }
 
     @PostMapping("/auth/register")
-    public ResponseEntity<?> register(@RequestBody User user, HttpServletResponse response) {
+    public ResponseEntity<?> register(@RequestBody User user, HttpServletRequest request,
+            HttpServletResponse response) {
         try {
-            authService.register(user);
+            authService.register(user, request.getRemoteAddr());
 
             // 🔐 Generate token
             String token = jwtUtil.generateToken(user.getEmail());
@@ -127,6 +107,10 @@ public class ConfigController {
 
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Collections.singletonMap("message", e.getMessage()));
+        } catch (ResponseStatusException e) {
+            // Throttled or shed by the password pool
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(Collections.singletonMap("message", e.getReason()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Collections.singletonMap("message", "Server error"));
@@ -134,8 +118,10 @@ public class ConfigController {
     }
 
     @PostMapping("/auth/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> credentials, HttpServletResponse response) {
-        String token = authService.login(credentials.get("username"), credentials.get("password"));
+    public ResponseEntity<?> login(@RequestBody Map<String, String> credentials, HttpServletRequest request,
+            HttpServletResponse response) {
+        String token = authService.login(credentials.get("username"), credentials.get("password"),
+                request.getRemoteAddr());
 
         Cookie cookie = new Cookie("token", token);
         cookie.setHttpOnly(true);
@@ -157,20 +143,12 @@ public class ConfigController {
         }
 
         try {
-            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(
-                    GoogleNetHttpTransport.newTrustedTransport(),
-                    JacksonFactory.getDefaultInstance())
-                    .setAudience(Collections
-                            .singletonList(googleClientId))
-                    .build();
-
-            GoogleIdToken idToken = verifier.verify(idTokenString);
-            if (idToken == null) {
+            GoogleIdToken.Payload payload = googleTokenVerifier.verify(idTokenString);
+            if (payload == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("message", "Invalid Google ID token"));
             }
 
-            GoogleIdToken.Payload payload = idToken.getPayload();
             String email = payload.getEmail();
             String name = (String) payload.get("name");
 
@@ -229,16 +207,8 @@ public class ConfigController {
         }
 
         try {
-            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(
-                    GoogleNetHttpTransport.newTrustedTransport(),
-                    JacksonFactory.getDefaultInstance())
-                    .setAudience(Collections
-                            .singletonList(googleClientId))
-                    .build();
-
-            GoogleIdToken idToken = verifier.verify(idTokenString);
-            if (idToken != null) {
-                GoogleIdToken.Payload payload = idToken.getPayload();
+            GoogleIdToken.Payload payload = googleTokenVerifier.verify(idTokenString);
+            if (payload != null) {
                 String email = payload.getEmail();
 
                 User existingUser = userRepository.findByEmail(email);
@@ -278,11 +248,7 @@ public class ConfigController {
 
     @GetMapping("/auth/status")
     public ResponseEntity<?> checkAuthStatus(@CookieValue(value = "token", required = false) String token) {
-        System.out.println("Status is called");
-        System.out.println("Tokennnnnnnnnnnnnnnnnnn=============" + token);
-        boolean test = jwtUtil.validateToken(token);
-        System.out.println("Test Result" + test);
-        if (token != null && jwtUtil.validateToken(token)) {
+        if (jwtUtil.validateToken(token)) {
             return ResponseEntity.ok(Map.of("isLoggedIn", true));
         } else {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("isLoggedIn", false));
@@ -4,6 +4,7 @@ import com.autopilot.backend.model.Subscription;
 import com.autopilot.backend.model.User;
 import com.autopilot.backend.repository.SubscriptionRepository;
 import com.autopilot.backend.repository.UserRepository;
+import com.autopilot.backend.service.CachedUserDetailsService;
 import com.autopilot.backend.service.PaymentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -25,6 +26,9 @@ public class PaymentController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CachedUserDetailsService userDetailsService;
+
     @PostMapping("/create-order")
     public Map<String, String> createOrder(@RequestBody Map<String, String> payload, Principal principal)
             throws Exception {
@@ -59,6 +63,7 @@ public class PaymentController {
                 user.setPlan(subscription.getPlan());
                 user.setSubscriptionDate(LocalDate.now());
                 userRepository.save(user);
+                userDetailsService.evict(user.getEmail());
             }
         }
 
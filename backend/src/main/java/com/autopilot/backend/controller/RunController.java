@@ -0,0 +1,254 @@
+package com.autopilot.backend.controller;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.autopilot.backend.model.Run;
+import com.autopilot.backend.model.RunRecord;
+import com.autopilot.backend.service.ApiResponseBody;
+import com.autopilot.backend.service.RunEventStream;
+import com.autopilot.backend.service.RunHistoryService;
+import com.autopilot.backend.service.RunService;
+
+@RestController
+@RequestMapping("/api/auth/runs")
+public class RunController {
+
+    @Autowired
+    private RunService runService;
+
+    @Autowired
+    private RunHistoryService runHistoryService;
+
+    @Value("${autopilot.runs.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @PostMapping
+    public ResponseEntity<?> submitRun(@RequestBody Map<String, Object> configMap, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Not authenticated"));
+        }
+        try {
+            Run run = runService.submit(configMap, principal.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toStatus(run));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "30")
+                    .body(Map.of("message", "Too many queued runs, try again later."));
+        }
+    }
+
+    /**
+     * Resume a run from its checkpoint. The body is the run's original config:
+     * it is not stored (it holds credentials) and must match the checkpointed
+     * inputs, script and SQL file contents included.
+     */
+    @PostMapping("/{runId}/resume")
+    public ResponseEntity<?> resumeRun(@PathVariable String runId, @RequestBody Map<String, Object> configMap,
+            Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Not authenticated"));
+        }
+        try {
+            Run run = runService.resume(runId, configMap, principal.getName());
+            if (run == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Run not found."));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toStatus(run));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "30")
+                    .body(Map.of("message", "Too many queued runs, try again later."));
+        }
+    }
+
+    @PostMapping("/{runId}/cancel")
+    public ResponseEntity<?> cancelRun(@PathVariable String runId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Not authenticated"));
+        }
+        try {
+            Run run = runService.cancel(runId, principal.getName());
+            if (run == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Run not found."));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toStatus(run));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{runId}")
+    public ResponseEntity<?> getRunStatus(@PathVariable String runId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Not authenticated"));
+        }
+        Run run = runService.getRun(runId, principal.getName());
+        if (run == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Run not found."));
+        }
+        return ResponseEntity.ok(toStatus(run));
+    }
+
+    @GetMapping("/{runId}/result")
+    public ResponseEntity<?> getRunResult(@PathVariable String runId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Not authenticated"));
+        }
+        Run run = runService.getRun(runId, principal.getName());
+        if (run == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Run not found."));
+        }
+        if (!run.getStatus().isFinished()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toStatus(run));
+        }
+        return ResponseEntity.ok(run.getOutput());
+    }
+
+    /**
+     * The full, decoded response body of an API task, numbered from 1 within
+     * its phase, for as long as the run is kept in memory. Cut off at the
+     * capture limit when the task-finish event reports it truncated.
+     */
+    @GetMapping("/{runId}/tasks/{phase}/{task}/body")
+    public ResponseEntity<?> getTaskResponseBody(@PathVariable String runId, @PathVariable String phase,
+            @PathVariable int task, Principal principal) throws IOException {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Not authenticated"));
+        }
+        ApiResponseBody body = runService.getResponseBody(runId, principal.getName(), phase, task);
+        if (body == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Response body not found."));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(new InputStreamResource(body.open()));
+    }
+
+    @GetMapping(path = "/{runId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamRunEvents(@PathVariable String runId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        RunEventStream events = runService.getEventStream(runId, principal.getName());
+        if (events == null) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        events.subscribe(emitter);
+        return ResponseEntity.ok(emitter);
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<?> getRunHistory(Principal principal,
+            @RequestParam(required = false) Run.Status status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "false") boolean includeOutput,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Not authenticated"));
+        }
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body(Map.of("message", "page must be >= 0 and size 1-100."));
+        }
+
+        Page<RunRecord> runs = runHistoryService.findRuns(principal.getName(), status, from, to, includeOutput,
+                page, size);
+        List<Map<String, Object>> content = runs.getContent().stream()
+                .map(record -> toHistory(record, includeOutput))
+                .toList();
+        return ResponseEntity.ok(Map.of(
+                "content", content,
+                "page", runs.getNumber(),
+                "size", runs.getSize(),
+                "totalElements", runs.getTotalElements(),
+                "totalPages", runs.getTotalPages()));
+    }
+
+    @GetMapping("/history/{runId}")
+    public ResponseEntity<?> getRunHistoryEntry(@PathVariable String runId, Principal principal,
+            @RequestParam(defaultValue = "false") boolean includeOutput) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Not authenticated"));
+        }
+        RunRecord record = runHistoryService.findRun(principal.getName(), runId, includeOutput);
+        if (record == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Run not found."));
+        }
+        return ResponseEntity.ok(toHistory(record, includeOutput));
+    }
+
+    private Map<String, Object> toHistory(RunRecord record, boolean includeOutput) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("runId", record.getId());
+        response.put("status", record.getStatus());
+        response.put("submittedAt", record.getSubmittedAt());
+        response.put("startedAt", record.getStartedAt());
+        response.put("finishedAt", record.getFinishedAt());
+        response.put("durationMs", record.getDurationMillis());
+        response.put("taskCount", record.getTaskCount());
+        response.put("failedTasks", record.getFailedTasks());
+        if (includeOutput) {
+            response.put("output", RunHistoryService.decompress(record.getOutput()));
+        }
+        if (record.getTasks() != null) {
+            response.put("tasks", record.getTasks().stream().map(task -> {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("phase", task.getPhase());
+                entry.put("task", task.getIndex() + 1);
+                entry.put("id", task.getTaskId());
+                entry.put("type", task.getType());
+                entry.put("status", task.getStatus());
+                entry.put("durationMs", task.getDurationMillis());
+                if (includeOutput) {
+                    entry.put("output", RunHistoryService.decompress(task.getOutput()));
+                }
+                return entry;
+            }).toList());
+        }
+        return response;
+    }
+
+    private Map<String, Object> toStatus(Run run) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("runId", run.getId());
+        response.put("status", run.getStatus());
+        response.put("submittedAt", run.getSubmittedAt());
+        response.put("startedAt", run.getStartedAt()); // null while queued
+        response.put("finishedAt", run.getFinishedAt()); // null until finished
+        if (run.getResumedFrom() != null) {
+            response.put("resumedFrom", run.getResumedFrom());
+        }
+        return response;
+    }
+}
@@ -6,7 +6,6 @@ import java.util.Map;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -14,7 +13,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.autopilot.backend.model.User;
+import com.autopilot.backend.model.UserProfile;
 import com.autopilot.backend.repository.UserRepository;
+import com.autopilot.backend.service.CachedUserDetailsService;
+import com.autopilot.backend.service.PasswordHasher;
 
 import lombok.RequiredArgsConstructor;
 
@@ -24,7 +26,8 @@ import lombok.RequiredArgsConstructor;
 public class UserController {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final CachedUserDetailsService userDetailsService;
 
 @GetMapping("/me")
 public ResponseEntity<?> getCurrentUser(Principal principal) {
@@ -32,7 +35,7 @@ public ResponseEntity<?> getCurrentUser(Principal principal) {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Not authenticated");
     }
 
-    User user = userRepository.findByEmail(principal.getName());
+    UserProfile user = userRepository.findProfileByEmail(principal.getName());
     if (user == null)
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
 
@@ -58,12 +61,13 @@ public ResponseEntity<?> getCurrentUser(Principal principal) {
         if (updates.containsKey("currentPassword")) {
             String currentPassword = updates.get("currentPassword");
             String newPassword = updates.get("newPassword");
-            if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
+            if (!passwordHasher.matches(currentPassword, user.getPassword())) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Incorrect current password");
             }
-            user.setPassword(passwordEncoder.encode(newPassword));
+            user.setPassword(passwordHasher.encode(newPassword));
         }
         userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
         return ResponseEntity.ok("User  updated successfully");
     }
 }
@@ -3,13 +3,17 @@ package com.autopilot.backend.loader;
 import com.autopilot.backend.config.APIConfig;
 import com.autopilot.backend.config.DBConfig;
 import com.autopilot.backend.config.ServerConfig;
+import com.autopilot.backend.service.JsonPointerExtractor;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File; // ✅ Needed
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ConfigLoader {
 
@@ -91,4 +95,84 @@ public class ConfigLoader {
         System.out.println("Loading all tasks");
         return mapper.readTree(new File(configPath));
     }
+
+    /**
+     * Parse a run request once into an immutable, typed plan. Every top-level
+     * array is a phase; task configs are bound to their typed class and the
+     * dependency graph of each phase is validated here, before anything runs.
+     *
+     * @throws IllegalArgumentException when a phase has duplicate ids, unknown dependencies or a cycle
+     */
+    public static ExecutionPlan compile(Map<String, Object> configMap) {
+        return compile(mapper.<JsonNode>valueToTree(configMap));
+    }
+
+    public static ExecutionPlan compile(JsonNode rootNode) {
+        Map<String, ExecutionPlan.Phase> phases = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = rootNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isArray()) {
+                phases.put(field.getKey(), compilePhase(field.getKey(), field.getValue()));
+            }
+        }
+        return new ExecutionPlan(phases, rootNode.path("incremental").asBoolean(false));
+    }
+
+    private static ExecutionPlan.Phase compilePhase(String name, JsonNode taskNodes) {
+        List<PlannedTask> tasks = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        List<List<String>> dependsOn = new ArrayList<>();
+
+        for (JsonNode task : taskNodes) {
+            PlannedTask plannedTask = compileTask(task);
+            tasks.add(plannedTask);
+            ids.add(plannedTask.getId());
+            dependsOn.add(plannedTask.getDependsOn());
+        }
+        return new ExecutionPlan.Phase(name, tasks, TaskGraph.build(ids, dependsOn));
+    }
+
+    private static PlannedTask compileTask(JsonNode task) {
+        String type = task.path("type").asText();
+        String id = task.hasNonNull("id") ? task.get("id").asText() : null;
+
+        List<String> dependsOn = null;
+        JsonNode dependsOnNode = task.get("dependsOn");
+        if (dependsOnNode != null && !dependsOnNode.isNull()) {
+            dependsOn = new ArrayList<>();
+            if (dependsOnNode.isArray()) {
+                for (JsonNode dependency : dependsOnNode) {
+                    dependsOn.add(dependency.asText());
+                }
+            } else {
+                dependsOn.add(dependsOnNode.asText());
+            }
+        }
+
+        Object config = null;
+        String error = null;
+        try {
+            switch (type) {
+                case "db":
+                    config = convertToDBConfig(task.get("config"));
+                    break;
+                case "shell":
+                    config = convertToServerConfig(task.get("config"));
+                    break;
+                case "api":
+                    APIConfig apiConfig = convertToAPIConfig(task.get("config"));
+                    if (apiConfig.getExtract() != null) {
+                        JsonPointerExtractor.validate(apiConfig.getExtract());
+                    }
+                    config = apiConfig;
+                    break;
+                default:
+                    break;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            error = e.getMessage();
+        }
+        return new PlannedTask(id, type, dependsOn, config, error);
+    }
 }
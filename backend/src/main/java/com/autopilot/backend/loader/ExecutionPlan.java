@@ -0,0 +1,67 @@
+package com.autopilot.backend.loader;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, fully parsed form of a run request: every phase ("basic", "pre",
+ * "post", ...) with its typed tasks and validated dependency graph. Built once
+ * per run by {@link ConfigLoader#compile} and shared read-only by all tasks.
+ */
+public final class ExecutionPlan {
+
+    public static final class Phase {
+        private final String name;
+        private final List<PlannedTask> tasks;
+        private final TaskGraph graph;
+
+        Phase(String name, List<PlannedTask> tasks, TaskGraph graph) {
+            this.name = name;
+            this.tasks = List.copyOf(tasks);
+            this.graph = graph;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<PlannedTask> getTasks() {
+            return tasks;
+        }
+
+        public TaskGraph getGraph() {
+            return graph;
+        }
+    }
+
+    private final Map<String, Phase> phases;
+    private final boolean incremental;
+
+    ExecutionPlan(Map<String, Phase> phases, boolean incremental) {
+        this.phases = Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+        this.incremental = incremental;
+    }
+
+    /** The phase with that name, or {@code null} if the request did not contain a task array for it. */
+    public Phase getPhase(String name) {
+        return phases.get(name);
+    }
+
+    public boolean hasPhase(String name) {
+        return phases.containsKey(name);
+    }
+
+    public Map<String, Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Whether the request set {@code "incremental": true}: tasks whose inputs
+     * match an earlier successful run are skipped instead of run again.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+}
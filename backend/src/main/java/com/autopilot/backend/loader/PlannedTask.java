@@ -0,0 +1,48 @@
+package com.autopilot.backend.loader;
+
+import java.util.List;
+
+/**
+ * One task of a compiled {@link ExecutionPlan}. The config is already bound to
+ * its typed class ({@code DBConfig}, {@code ServerConfig} or {@code APIConfig})
+ * and must be treated as read-only once the plan is built.
+ */
+public final class PlannedTask {
+
+    private final String id;
+    private final String type;
+    private final List<String> dependsOn;
+    private final Object config;
+    private final String error;
+
+    PlannedTask(String id, String type, List<String> dependsOn, Object config, String error) {
+        this.id = id;
+        this.type = type;
+        this.dependsOn = dependsOn != null ? List.copyOf(dependsOn) : null;
+        this.config = config;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /** Declared dependency ids, or {@code null} when the task did not declare any. */
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    /** Typed config, or {@code null} for unknown task types and invalid configs. */
+    public Object getConfig() {
+        return config;
+    }
+
+    /** Why the config could not be bound, reported when the task runs. */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,139 @@
+package com.autopilot.backend.loader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Dependency graph of the tasks in one phase, indexed by declaration order.
+ * <p>
+ * Tasks may declare an {@code id} and a {@code dependsOn} list of ids. When no
+ * task in the phase declares {@code dependsOn}, every task is ordered after
+ * the one before it, which keeps the historical strictly sequential behaviour
+ * for existing configs: these edges only order the tasks, a failed task does
+ * not skip the ones after it (see {@link #isSequential()}). As soon as one task
+ * declares it (even as an empty list), only the declared edges are honoured
+ * and independent tasks run concurrently.
+ */
+public final class TaskGraph {
+
+    private final List<List<Integer>> dependencies;
+    private final List<Integer> order;
+    private final boolean sequential;
+
+    private TaskGraph(List<List<Integer>> dependencies, List<Integer> order, boolean sequential) {
+        this.dependencies = dependencies;
+        this.order = order;
+        this.sequential = sequential;
+    }
+
+    /**
+     * @param ids       optional id of each task, {@code null} when not declared
+     * @param dependsOn declared dependency ids of each task, {@code null} when not declared
+     */
+    public static TaskGraph build(List<String> ids, List<List<String>> dependsOn) {
+        int size = ids.size();
+        Map<String, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String id = ids.get(i);
+            if (id != null && indexById.put(id, i) != null) {
+                throw new IllegalArgumentException("Duplicate task id: " + id);
+            }
+        }
+
+        boolean declared = dependsOn.stream().anyMatch(d -> d != null);
+        List<List<Integer>> dependencies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<Integer> edges = new ArrayList<>();
+            if (!declared) {
+                if (i > 0) {
+                    edges.add(i - 1);
+                }
+            } else if (dependsOn.get(i) != null) {
+                for (String dependency : dependsOn.get(i)) {
+                    Integer target = indexById.get(dependency);
+                    if (target == null) {
+                        throw new IllegalArgumentException(
+                                "Task #" + (i + 1) + " depends on unknown task id: " + dependency);
+                    }
+                    if (!edges.contains(target)) {
+                        edges.add(target);
+                    }
+                }
+            }
+            dependencies.add(Collections.unmodifiableList(edges));
+        }
+
+        return new TaskGraph(Collections.unmodifiableList(dependencies), topologicalOrder(dependencies), !declared);
+    }
+
+    // Kahn's algorithm, always picking the lowest ready index so the order is deterministic
+    private static List<Integer> topologicalOrder(List<List<Integer>> dependencies) {
+        int size = dependencies.size();
+        int[] pending = new int[size];
+        List<List<Integer>> dependents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < size; i++) {
+            pending[i] = dependencies.get(i).size();
+            for (int dependency : dependencies.get(i)) {
+                dependents.get(dependency).add(i);
+            }
+        }
+
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < size; i++) {
+            if (pending[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        List<Integer> order = new ArrayList<>(size);
+        while (!ready.isEmpty()) {
+            int next = ready.poll();
+            order.add(next);
+            for (int dependent : dependents.get(next)) {
+                if (--pending[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (order.size() != size) {
+            List<Integer> cyclic = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (pending[i] > 0) {
+                    cyclic.add(i + 1);
+                }
+            }
+            throw new IllegalArgumentException("Task dependencies contain a cycle involving tasks #" + cyclic);
+        }
+        return Collections.unmodifiableList(order);
+    }
+
+    public int size() {
+        return dependencies.size();
+    }
+
+    public List<Integer> dependenciesOf(int index) {
+        return dependencies.get(index);
+    }
+
+    /**
+     * Whether no task declared {@code dependsOn}, so the edges only keep the
+     * declaration order: every task runs, whether the one before it succeeded
+     * or not.
+     */
+    public boolean isSequential() {
+        return sequential;
+    }
+
+    /** Task indexes in an order where every task comes after its dependencies. */
+    public List<Integer> order() {
+        return order;
+    }
+}
@@ -0,0 +1,32 @@
+package com.autopilot.backend.model;
+
+public class HostResult {
+
+    private final String host;
+    private final TaskResult.Status status;
+    private final String message;
+    private final long durationMillis;
+
+    public HostResult(String host, TaskResult.Status status, String message, long durationMillis) {
+        this.host = host;
+        this.status = status;
+        this.message = message;
+        this.durationMillis = durationMillis;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public TaskResult.Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
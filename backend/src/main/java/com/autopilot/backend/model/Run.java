@@ -0,0 +1,88 @@
+package com.autopilot.backend.model;
+
+import java.time.Instant;
+
+/**
+ * In-memory state of a submitted automation run. Updated by the run executor
+ * thread and read by request threads, hence the volatile fields.
+ */
+public class Run {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final String owner;
+    private final String resumedFrom;
+    private final Instant submittedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String output;
+
+    public Run(String id, String owner) {
+        this(id, owner, null);
+    }
+
+    public Run(String id, String owner, String resumedFrom) {
+        this.id = id;
+        this.owner = owner;
+        this.resumedFrom = resumedFrom;
+        this.submittedAt = Instant.now();
+    }
+
+    public void markRunning() {
+        this.startedAt = Instant.now();
+        this.status = Status.RUNNING;
+    }
+
+    public void markFinished(boolean succeeded, String output) {
+        this.output = output;
+        this.finishedAt = Instant.now();
+        this.status = succeeded ? Status.SUCCEEDED : Status.FAILED;
+    }
+
+    public void markCancelled(String output) {
+        this.output = output;
+        this.finishedAt = Instant.now();
+        this.status = Status.CANCELLED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /** Id of the run this one resumes, or {@code null}. */
+    public String getResumedFrom() {
+        return resumedFrom;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+}
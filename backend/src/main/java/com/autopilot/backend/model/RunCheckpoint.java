@@ -0,0 +1,116 @@
+package com.autopilot.backend.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import jakarta.persistence.Id;
+
+/**
+ * Durable progress of a queued run: the input fingerprint of every task and
+ * the tasks that have succeeded so far, so a failed or interrupted run can be
+ * resumed. The run config itself is not stored, as it holds credentials.
+ */
+@Document(collection = "run_checkpoints")
+public class RunCheckpoint {
+
+    public static class TaskCheckpoint {
+        private String key;
+        private String fingerprint;
+
+        public TaskCheckpoint() {
+        }
+
+        public TaskCheckpoint(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+
+        /** "phase#index" of the task in the plan. */
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        /** Input fingerprint, {@code null} when the task has none. */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public void setFingerprint(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    @Id
+    private String id;
+    private String owner;
+    private String resumedFrom;
+    private Instant startedAt;
+    private List<TaskCheckpoint> tasks;
+    private List<String> completed;
+    @Indexed(name = "expiresAt_ttl", expireAfter = "0s")
+    private Instant expiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getResumedFrom() {
+        return resumedFrom;
+    }
+
+    public void setResumedFrom(String resumedFrom) {
+        this.resumedFrom = resumedFrom;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public List<TaskCheckpoint> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<TaskCheckpoint> tasks) {
+        this.tasks = tasks;
+    }
+
+    /** Keys of the tasks that have succeeded. */
+    public List<String> getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(List<String> completed) {
+        this.completed = completed;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,196 @@
+package com.autopilot.backend.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import jakarta.persistence.Id;
+
+/**
+ * A finished run as kept in the history. Outputs are stored gzip-compressed;
+ * Mongo drops the document once {@code expiresAt} has passed.
+ */
+@Document(collection = "runs")
+@CompoundIndex(name = "owner_submittedAt", def = "{'owner': 1, 'submittedAt': -1}")
+public class RunRecord {
+
+    public static class TaskRecord {
+        private String phase;
+        private int index;
+        private String taskId;
+        private String type;
+        private TaskResult.Status status;
+        private long durationMillis;
+        private byte[] output;
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public void setPhase(String phase) {
+            this.phase = phase;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        public void setTaskId(String taskId) {
+            this.taskId = taskId;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public TaskResult.Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(TaskResult.Status status) {
+            this.status = status;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public void setDurationMillis(long durationMillis) {
+            this.durationMillis = durationMillis;
+        }
+
+        public byte[] getOutput() {
+            return output;
+        }
+
+        public void setOutput(byte[] output) {
+            this.output = output;
+        }
+    }
+
+    @Id
+    private String id;
+    private String owner;
+    private Run.Status status;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long durationMillis;
+    private int taskCount;
+    private int failedTasks;
+    private byte[] output;
+    private List<TaskRecord> tasks;
+    @Indexed(name = "expiresAt_ttl", expireAfter = "0s")
+    private Instant expiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Run.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Run.Status status) {
+        this.status = status;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(Instant submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    public int getFailedTasks() {
+        return failedTasks;
+    }
+
+    public void setFailedTasks(int failedTasks) {
+        this.failedTasks = failedTasks;
+    }
+
+    public byte[] getOutput() {
+        return output;
+    }
+
+    public void setOutput(byte[] output) {
+        this.output = output;
+    }
+
+    public List<TaskRecord> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<TaskRecord> tasks) {
+        this.tasks = tasks;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
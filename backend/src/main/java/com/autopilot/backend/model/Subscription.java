@@ -2,11 +2,14 @@ package com.autopilot.backend.model;
 
 import java.time.LocalDateTime;
 
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.persistence.Id;
 
 @Document(collection = "subscriptions")
+@CompoundIndex(name = "userId_paymentDate", def = "{'userId': 1, 'paymentDate': -1}")
 public class Subscription {
     @Id
     private String id;
@@ -15,6 +18,7 @@ public class Subscription {
     private double amount;
     private LocalDateTime paymentDate;
     private String paymentId;
+    @Indexed(unique = true)
     private String orderId;
     private String status;
 
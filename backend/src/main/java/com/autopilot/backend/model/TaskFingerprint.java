@@ -0,0 +1,72 @@
+package com.autopilot.backend.model;
+
+import java.time.Instant;
+
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import jakarta.persistence.Id;
+
+/**
+ * Inputs of a task that once succeeded for a user. The id combines the owner
+ * and the fingerprint, so an up-to-date check is a lookup by id.
+ */
+@Document(collection = "task_fingerprints")
+public class TaskFingerprint {
+    @Id
+    private String id;
+    private String owner;
+    private String taskId;
+    private String type;
+    private Instant succeededAt;
+    @Indexed(name = "expiresAt_ttl", expireAfter = "0s")
+    private Instant expiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Instant getSucceededAt() {
+        return succeededAt;
+    }
+
+    public void setSucceededAt(Instant succeededAt) {
+        this.succeededAt = succeededAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
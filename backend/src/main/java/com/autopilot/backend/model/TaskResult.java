@@ -0,0 +1,72 @@
+package com.autopilot.backend.model;
+
+import com.autopilot.backend.service.ApiResponseBody;
+
+public class TaskResult {
+
+    public enum Status {
+        SUCCEEDED, FAILED, SKIPPED,
+        /** Not run because its inputs match an earlier successful run (incremental mode). */
+        UP_TO_DATE
+    }
+
+    private final int index;
+    private final String id;
+    private final String type;
+    private final Status status;
+    private final String output;
+    private final long durationMillis;
+    private final ApiResponseBody responseBody;
+
+    public TaskResult(int index, String id, String type, Status status, String output, long durationMillis) {
+        this(index, id, type, status, output, durationMillis, null);
+    }
+
+    public TaskResult(int index, String id, String type, Status status, String output, long durationMillis,
+            ApiResponseBody responseBody) {
+        this.index = index;
+        this.id = id;
+        this.type = type;
+        this.status = status;
+        this.output = output;
+        this.durationMillis = durationMillis;
+        this.responseBody = responseBody;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /** Up-to-date tasks count as succeeded, so their dependents still run. */
+    public boolean isSucceeded() {
+        return status == Status.SUCCEEDED || status == Status.UP_TO_DATE;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * The full response body of an API task, or {@code null}. It belongs to the
+     * run's {@link com.autopilot.backend.service.RunResponseBodies}, which closes it.
+     */
+    public ApiResponseBody getResponseBody() {
+        return responseBody;
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -16,9 +17,11 @@ import jakarta.persistence.Id;
 public class User implements UserDetails {
     @Id
     private String id;
+    @Indexed(unique = true)
     private String email;
     private String phone;
     private String name;
+    @Indexed(unique = true, sparse = true) // older accounts may have no username
     private String username;
     private String password; // Hashed
     private String role;
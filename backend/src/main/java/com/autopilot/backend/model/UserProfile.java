@@ -0,0 +1,16 @@
+package com.autopilot.backend.model;
+
+/**
+ * Read-only view of the {@link User} fields shown on the profile page. Used
+ * as a repository projection so only these fields are fetched.
+ */
+public interface UserProfile {
+
+    String getName();
+
+    String getUsername();
+
+    String getEmail();
+
+    String getPhone();
+}
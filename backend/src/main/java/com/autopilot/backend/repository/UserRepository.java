@@ -4,10 +4,12 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import com.autopilot.backend.model.User;
+import com.autopilot.backend.model.UserProfile;
 
 
 @Repository
 public interface UserRepository extends MongoRepository<User, String> {
     User findByUsername(String username);
     User findByEmail(String email); // 👈 Add this line
+    UserProfile findProfileByEmail(String email); // only the profile fields
 }
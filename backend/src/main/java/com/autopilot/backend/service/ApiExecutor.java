@@ -2,102 +2,364 @@ package com.autopilot.backend.service;
 
 import com.autopilot.backend.config.APIConfig;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Service
 public class ApiExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(ApiExecutor.class);
+
+    /** Response code of a call that failed: connection error, timeout, cancellation or a bad request. */
+    public static final int FAILED = -1;
+    /** Response code of a call not sent because the host's circuit breaker is open. */
+    public static final int CIRCUIT_OPEN = -2;
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
-   public APIConfig execute(APIConfig apiConfig) {
-    HttpURLConnection connection = null;
-    try {
-        URL url = new URL(apiConfig.getUrl());
-        connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod(apiConfig.getMethod());
+    // Headers the JDK client manages itself and refuses to have set
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+            "upgrade");
+
+    // Only these are sent again: repeating them has the same effect as sending them once
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE", "TRACE");
+    private static final Set<String> STANDARD_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE", "TRACE",
+            "POST", "PATCH");
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 502, 503, 504);
+    // Statuses meaning the host itself is unavailable, which count towards opening its circuit breaker
+    private static final Set<Integer> UNAVAILABLE_STATUSES = Set.of(502, 503, 504);
+
+    private final Duration defaultConnectTimeout;
+    private final Duration defaultAttemptTimeout;
+    private final int defaultMaxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final HttpClient httpClient;
+    private final HostCircuitBreakers circuitBreakers;
+    private final ResponseCapture responseCapture;
+    private final MeterRegistry meterRegistry;
+    // The connect timeout is a client setting, so tasks overriding it get a shared client per value
+    private final Map<Duration, HttpClient> clientsByConnectTimeout = new ConcurrentHashMap<>();
+
+    public ApiExecutor(@Value("${autopilot.api.connect-timeout-seconds:10}") long connectTimeoutSeconds,
+            @Value("${autopilot.api.attempt-timeout-seconds:60}") long attemptTimeoutSeconds,
+            @Value("${autopilot.api.retry.max-attempts:3}") int maxAttempts,
+            @Value("${autopilot.api.retry.initial-backoff-ms:200}") long initialBackoffMillis,
+            @Value("${autopilot.api.retry.max-backoff-ms:5000}") long maxBackoffMillis,
+            HostCircuitBreakers circuitBreakers,
+            ResponseCapture responseCapture,
+            MeterRegistry meterRegistry) {
+        this.defaultConnectTimeout = Duration.ofSeconds(connectTimeoutSeconds);
+        this.defaultAttemptTimeout = Duration.ofSeconds(attemptTimeoutSeconds);
+        this.defaultMaxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+        this.httpClient = newClient(defaultConnectTimeout);
+        this.circuitBreakers = circuitBreakers;
+        this.responseCapture = responseCapture;
+        this.meterRegistry = meterRegistry;
+    }
+
+    private static HttpClient newClient(Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
+    private HttpClient clientFor(APIConfig apiConfig) {
+        Duration connectTimeout = connectTimeout(apiConfig);
+        if (connectTimeout.equals(defaultConnectTimeout)) {
+            return httpClient;
+        }
+        return clientsByConnectTimeout.computeIfAbsent(connectTimeout, ApiExecutor::newClient);
+    }
+
+    private Duration connectTimeout(APIConfig apiConfig) {
+        return apiConfig.getConnectTimeoutSeconds() != null
+                ? Duration.ofSeconds(apiConfig.getConnectTimeoutSeconds())
+                : defaultConnectTimeout;
+    }
 
+    private Duration attemptTimeout(APIConfig apiConfig) {
+        return apiConfig.getAttemptTimeoutSeconds() != null
+                ? Duration.ofSeconds(apiConfig.getAttemptTimeoutSeconds())
+                : defaultAttemptTimeout;
+    }
+
+    private int attempts(String method, APIConfig apiConfig) {
+        if (!IDEMPOTENT_METHODS.contains(method)) {
+            return 1;
+        }
+        return apiConfig.getMaxAttempts() != null ? Math.max(1, apiConfig.getMaxAttempts()) : defaultMaxAttempts;
+    }
+
+    private static String method(APIConfig apiConfig) {
+        return apiConfig.getMethod() != null ? apiConfig.getMethod().toUpperCase(Locale.ROOT) : "GET";
+    }
+
+    /**
+     * How long the call may take in all: every attempt timing out, plus the
+     * longest backoff before each retry. API tasks get this as their timeout
+     * unless they set one, so the task timer never cuts off a pending retry.
+     */
+    public long taskTimeoutSeconds(APIConfig apiConfig) {
+        int attempts = attempts(method(apiConfig), apiConfig);
+        long attemptMillis = connectTimeout(apiConfig).toMillis() + attemptTimeout(apiConfig).toMillis();
+        long millis = attempts * attemptMillis + (attempts - 1) * maxBackoffMillis;
+        return TimeUnit.MILLISECONDS.toSeconds(millis + 999);
+    }
+
+    /**
+     * Call the API and block until the response has been read. Never throws:
+     * failures are reported as response code {@link #FAILED}, or
+     * {@link #CIRCUIT_OPEN} when the call was not sent, with the error as message.
+     */
+    public APIConfig execute(APIConfig apiConfig) {
+        return executeAsync(apiConfig).join();
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute}: no thread is held while the
+     * request is in flight or waiting to be retried. The future always
+     * completes normally, with the same response code conventions as
+     * {@link #execute}.
+     */
+    public CompletableFuture<APIConfig> executeAsync(APIConfig apiConfig) {
+        return executeAsync(apiConfig, new Cancellation());
+    }
+
+    /**
+     * Same as {@link #executeAsync(APIConfig)}; cancelling aborts the exchange
+     * or the pending retry and completes the future with response code {@link #FAILED}.
+     * <p>
+     * Idempotent methods are retried on connection errors and on 429, 502, 503
+     * and 504, with exponential backoff and jitter (a Retry-After in seconds is
+     * honoured up to the maximum backoff). Calls to a host whose circuit
+     * breaker is open fail fast without being sent.
+     */
+    public CompletableFuture<APIConfig> executeAsync(APIConfig apiConfig, Cancellation cancellation) {
+        long start = System.nanoTime();
+        HttpRequest request;
+        try {
+            request = buildRequest(apiConfig);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(handleFailure(apiConfig, e, start));
+        }
+
+        int attempts = attempts(request.method(), apiConfig);
+        return attempt(apiConfig, request, hostOf(request.uri()), 1, attempts, cancellation, start);
+    }
+
+    private CompletableFuture<APIConfig> attempt(APIConfig apiConfig, HttpRequest request, String host,
+            int attempt, int attempts, Cancellation cancellation, long start) {
+        if (cancellation.isCancelled()) {
+            return CompletableFuture.completedFuture(
+                    handleFailure(apiConfig, new CancellationException("API call cancelled"), start));
+        }
+        if (!circuitBreakers.tryAcquire(host)) {
+            logger.warn("Circuit open for {}, failing fast", host);
+            recordRequest(apiConfig, "circuit_open", start);
+            apiConfig.setResponseCode(CIRCUIT_OPEN);
+            apiConfig.setResponseMessage("⚡ Circuit open for " + host + ": too many recent failures, not calling it");
+            apiConfig.setResponseBody(null);
+            return CompletableFuture.completedFuture(apiConfig);
+        }
+
+        CompletableFuture<HttpResponse<ApiResponseBody>> exchange = clientFor(apiConfig).sendAsync(request,
+                responseCapture.handler(apiConfig.getExtract()));
+        Cancellation.Registration registration = cancellation.onCancel(() -> exchange.cancel(true));
+        return exchange
+                .handle((response, error) -> {
+                    registration.close();
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause()
+                                : error;
+                        if (cancellation.isCancelled() || cause instanceof CancellationException) {
+                            circuitBreakers.release(host);
+                            return CompletableFuture.completedFuture(handleFailure(apiConfig, cause, start));
+                        }
+                        circuitBreakers.record(host, false);
+                        if (attempt < attempts && cause instanceof IOException) {
+                            return retry(apiConfig, request, host, attempt, attempts, cancellation, start,
+                                    "connection", backoffMillis(attempt, null));
+                        }
+                        return CompletableFuture.completedFuture(handleFailure(apiConfig, cause, start));
+                    }
+
+                    int status = response.statusCode();
+                    circuitBreakers.record(host, !UNAVAILABLE_STATUSES.contains(status));
+                    if (attempt < attempts && RETRYABLE_STATUSES.contains(status)) {
+                        response.body().close();
+                        return retry(apiConfig, request, host, attempt, attempts, cancellation, start,
+                                String.valueOf(status), backoffMillis(attempt, response));
+                    }
+                    return CompletableFuture.completedFuture(handleResponse(apiConfig, response, start));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /** Wait out the backoff without holding a thread, then make the next attempt. */
+    private CompletableFuture<APIConfig> retry(APIConfig apiConfig, HttpRequest request, String host,
+            int attempt, int attempts, Cancellation cancellation, long start, String reason, long delayMillis) {
+        logger.warn("API call to {} failed ({}), attempt {}/{}; retrying in {} ms", host, reason, attempt, attempts,
+                delayMillis);
+        meterRegistry.counter("autopilot.api.retries", "reason", reason).increment();
+
+        CompletableFuture<Void> backoff = new CompletableFuture<>();
+        backoff.completeAsync(() -> null, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+        Cancellation.Registration registration = cancellation.onCancel(() -> backoff.cancel(false));
+        return backoff
+                .handle((ignored, error) -> {
+                    registration.close();
+                    return null;
+                })
+                .thenCompose(ignored -> attempt(apiConfig, request, host, attempt + 1, attempts, cancellation,
+                        start));
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half of the capped delay plus a
+     * random part of the other half, or the server's Retry-After if longer.
+     */
+    private long backoffMillis(int attempt, HttpResponse<?> response) {
+        long cap = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        long delay = cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+        if (response != null) {
+            String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+            if (retryAfter != null && retryAfter.trim().matches("\\d{1,9}")) {
+                delay = Math.max(delay, Math.min(maxBackoffMillis, Long.parseLong(retryAfter.trim()) * 1000));
+            }
+        }
+        return delay;
+    }
+
+    static String hostOf(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + (uri.getPort() != -1 ? ":" + uri.getPort() : "");
+    }
+
+    private HttpRequest buildRequest(APIConfig apiConfig) throws IOException {
+        String method = method(apiConfig);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(apiConfig.getUrl()))
+                .timeout(attemptTimeout(apiConfig));
+
+        boolean hasContentType = false;
+        boolean hasAcceptEncoding = false;
         if (apiConfig.getHeaders() != null) {
             for (Map.Entry<String, String> header : apiConfig.getHeaders().entrySet()) {
-                connection.setRequestProperty(header.getKey(), header.getValue());
+                String name = header.getKey().toLowerCase(Locale.ROOT);
+                if (RESTRICTED_HEADERS.contains(name)) {
+                    logger.warn("Ignoring header managed by the HTTP client: {}", header.getKey());
+                    continue;
+                }
+                hasContentType |= name.equals("content-type");
+                hasAcceptEncoding |= name.equals("accept-encoding");
+                builder.header(header.getKey(), header.getValue());
             }
         }
 
-        if ("POST".equalsIgnoreCase(apiConfig.getMethod())) {
-            connection.setDoOutput(true);
-            try (OutputStream os = connection.getOutputStream()) {
-                byte[] input;
-                Object body = apiConfig.getBody();
-                if (body instanceof String) {
-                    input = ((String) body).getBytes(StandardCharsets.UTF_8);
-                } else {
-                    String jsonBody = objectMapper.writeValueAsString(body);
-                    input = jsonBody.getBytes(StandardCharsets.UTF_8);
+        if (!hasAcceptEncoding) {
+            // Decoded while streaming, see ResponseCapture
+            builder.header("Accept-Encoding", "gzip, deflate");
+        }
+
+        Object body = apiConfig.getBody();
+        boolean sendsBody = method.equals("POST") || method.equals("PUT") || method.equals("PATCH");
+        if (sendsBody && body != null) {
+            byte[] input;
+            if (body instanceof String) {
+                input = ((String) body).getBytes(StandardCharsets.UTF_8);
+            } else {
+                input = objectMapper.writeValueAsBytes(body);
+                if (!hasContentType) {
+                    builder.header("Content-Type", "application/json");
                 }
-                os.write(input, 0, input.length);
             }
+            builder.method(method, HttpRequest.BodyPublishers.ofByteArray(input));
+        } else {
+            builder.method(method, HttpRequest.BodyPublishers.noBody());
         }
+        return builder.build();
+    }
 
-        int status = connection.getResponseCode();
+    /**
+     * The response message is a bounded preview of the body; the whole body is
+     * available through {@link APIConfig#getResponseBody()}, which the caller
+     * must close.
+     */
+    private APIConfig handleResponse(APIConfig apiConfig, HttpResponse<ApiResponseBody> response, long start) {
+        int status = response.statusCode();
         logger.info("API Response Code: {}", status);
+        recordRequest(apiConfig, String.valueOf(status), start);
 
-        String responseMessage = readResponse(connection);
+        ApiResponseBody body = response.body();
+        String responseMessage = body.getPreview();
         apiConfig.setResponseCode(status);
         apiConfig.setResponseMessage(responseMessage);
+        apiConfig.setResponseBody(body);
+        if (body.getFile() != null || body.isTruncated()) {
+            logger.info("API response body: {} bytes ({} on the wire, {}){}", body.getSize(), body.getWireBytes(),
+                    body.getContentEncoding(), body.isTruncated() ? ", truncated" : "");
+        }
 
         if (status >= 400) {
             logger.error("API call failed with status code: {} and message: {}", status, responseMessage);
         } else {
             logger.info("API executed successfully.");
         }
-
         return apiConfig;
+    }
 
-    } catch (Exception e) {
+    private APIConfig handleFailure(APIConfig apiConfig, Throwable e, long start) {
         // Catch any exception (including IOException) here
         logger.error("Exception during API execution: ", e);
+        recordRequest(apiConfig, "error", start);
 
         // Set response code to -1 to indicate exception and set message
-        apiConfig.setResponseCode(-1);
-        apiConfig.setResponseMessage(e.getMessage());
-
+        apiConfig.setResponseCode(FAILED);
+        apiConfig.setResponseMessage(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        apiConfig.setResponseBody(null);
         return apiConfig;
-
-    } finally {
-        if (connection != null) {
-            connection.disconnect();
-        }
     }
-}
 
+    private void recordRequest(APIConfig apiConfig, String status, long start) {
+        Timer.builder("autopilot.api.requests")
+                .description("API task requests by response status")
+                .tag("method", methodTag(apiConfig.getMethod()))
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
 
-    private String readResponse(HttpURLConnection connection) throws IOException {
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-            String inputLine;
-            while ((inputLine = in.readLine()) != null) {
-                response.append(inputLine);
-            }
-        } catch (IOException e) {
-            // Handle the case where the error response is returned
-            try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getErrorStream()))) {
-                String inputLine;
-                while ((inputLine = in.readLine()) != null) {
-                    response.append(inputLine);
-                }
-            }
+    // Methods come from user configs, so anything but the standard ones is folded into one tag value
+    private static String methodTag(String method) {
+        if (method == null) {
+            return "GET";
         }
-        return response.toString();
+        String upper = method.toUpperCase(Locale.ROOT);
+        return STANDARD_METHODS.contains(upper) ? upper : "OTHER";
     }
 }
@@ -0,0 +1,221 @@
+package com.autopilot.backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The decoded body of an API response, captured while it streams in. Bodies
+ * up to the in-memory limit are kept in memory; larger ones are spilled to a
+ * temporary file, or cut off at the limit when spilling is disabled. Either
+ * way the first bytes stay in memory for {@link #getPreview()}, and the body is
+ * cut off at the file limit so a huge download cannot fill the disk.
+ * <p>
+ * Closing the body deletes its spill file.
+ */
+public class ApiResponseBody implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiResponseBody.class);
+
+    private final String contentEncoding;
+    private final Charset charset;
+    private final int memoryLimit;
+    private final long fileLimit;
+    private final Path spillDir;
+    private final int previewChars;
+
+    private byte[] memory = new byte[1024];
+    private int memoryCount;
+    private Path file;
+    private OutputStream fileOut;
+    private long size;
+    private long wireBytes;
+    private boolean truncated;
+    private String preview;
+    private JsonPointerExtractor extractor;
+
+    /**
+     * @param spillDir where large bodies are written, or {@code null} to cut them off at {@code memoryLimit}
+     */
+    ApiResponseBody(String contentEncoding, Charset charset, int memoryLimit, long fileLimit, Path spillDir,
+            int previewChars) {
+        this.contentEncoding = contentEncoding;
+        this.charset = charset;
+        this.memoryLimit = memoryLimit;
+        this.fileLimit = fileLimit;
+        this.spillDir = spillDir;
+        this.previewChars = previewChars;
+    }
+
+    /** Receives the decoded body. */
+    OutputStream sink() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                append(b, off, len);
+            }
+        };
+    }
+
+    /** Also evaluate the extractor's pointers against the body as it streams in. */
+    void extractWith(JsonPointerExtractor extractor) {
+        this.extractor = extractor;
+    }
+
+    void countWireBytes(long bytes) {
+        wireBytes += bytes;
+    }
+
+    private void append(byte[] b, int off, int len) throws IOException {
+        if (extractor != null) {
+            extractor.feed(b, off, len);
+        }
+        size += len;
+        if (truncated) {
+            return;
+        }
+        if (fileOut == null && memoryCount + len <= memoryLimit) {
+            ensureMemory(memoryCount + len);
+            System.arraycopy(b, off, memory, memoryCount, len);
+            memoryCount += len;
+            return;
+        }
+        if (fileOut == null) {
+            if (spillDir == null) {
+                int fits = memoryLimit - memoryCount;
+                ensureMemory(memoryLimit);
+                System.arraycopy(b, off, memory, memoryCount, fits);
+                memoryCount = memoryLimit;
+                truncated = true;
+                return;
+            }
+            spill();
+        }
+        long written = size - len;
+        int fits = (int) Math.min(len, Math.max(0, fileLimit - written));
+        fileOut.write(b, off, fits);
+        if (fits < len) {
+            truncated = true;
+        }
+    }
+
+    private void ensureMemory(int capacity) {
+        if (capacity > memory.length) {
+            memory = Arrays.copyOf(memory, Math.min(memoryLimit, Math.max(capacity, memory.length * 2)));
+        }
+    }
+
+    /** Move what is in memory to a new spill file, keeping only the bytes needed for the preview. */
+    private void spill() throws IOException {
+        Files.createDirectories(spillDir);
+        file = Files.createTempFile(spillDir, "response-", ".body");
+        fileOut = Files.newOutputStream(file);
+        fileOut.write(memory, 0, memoryCount);
+        int keep = Math.min(memoryCount, previewBytes());
+        memory = Arrays.copyOf(memory, keep);
+        memoryCount = keep;
+        logger.info("Response body larger than {} bytes, spilling to {}", memoryLimit, file);
+    }
+
+    /** Called once the whole body has been received. */
+    void finish() throws IOException {
+        if (fileOut != null) {
+            fileOut.close();
+        }
+        if (extractor != null) {
+            extractor.finish();
+        }
+        int previewLength = Math.min(memoryCount, previewBytes());
+        String text = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(ByteBuffer.wrap(memory, 0, previewLength))
+                .toString();
+        preview = text.length() > previewChars ? text.substring(0, previewChars) : text;
+    }
+
+    private int previewBytes() {
+        // Enough bytes for previewChars characters in any charset
+        return (int) Math.min(Integer.MAX_VALUE, previewChars * 4L);
+    }
+
+    /** The first characters of the body, at most the configured preview length. */
+    public String getPreview() {
+        return preview;
+    }
+
+    /** The captured body: the whole body unless {@link #isTruncated()}. */
+    public InputStream open() throws IOException {
+        if (file != null) {
+            return Files.newInputStream(file);
+        }
+        return new ByteArrayInputStream(memory, 0, memoryCount);
+    }
+
+    /** Values extracted from the whole body (not just the captured part), by variable name. */
+    public Map<String, String> getExtracted() {
+        return extractor != null ? extractor.getValues() : Map.of();
+    }
+
+    /** Why extraction failed, e.g. a pointer matched nothing, or {@code null}. */
+    public String getExtractionError() {
+        return extractor != null ? extractor.getError() : null;
+    }
+
+    /** Decoded size of the whole body, including any part that was cut off. */
+    public long getSize() {
+        return size;
+    }
+
+    /** Size of the body as received, before Content-Encoding was decoded. */
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /** The spill file holding the body, or {@code null} when it is held in memory. */
+    public Path getFile() {
+        return file;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (fileOut != null) {
+                fileOut.close();
+            }
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete response spill file {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.autopilot.backend.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.autopilot.backend.model.User;
@@ -15,13 +14,21 @@ public class AuthService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
 
     @Autowired
     private JwtUtil jwtUtil;
 
 
     public void register(User user) {
+        register(user, null);
+    }
+
+    public void register(User user, String clientIp) {
+        loginThrottle.acquire(null, clientIp);
         if (userRepository.findByUsername(user.getUsername()) != null) {
             throw new IllegalArgumentException("Username already exists");
         }
@@ -29,19 +36,26 @@ public class AuthService {
             throw new IllegalArgumentException("Email already exists");
         }
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHasher.encode(user.getPassword()));
         user.setSubscribed(false);
         user.setRole("USER"); 
         userRepository.save(user);
     }
 
     public String login(String email, String password) {
+        return login(email, password, null);
+    }
+
+    public String login(String email, String password, String clientIp) {
+        loginThrottle.acquire(email, clientIp);
         User user = userRepository.findByEmail(email);
         if (user == null) {
+            loginThrottle.recordFailure(email);
             throw new RuntimeException("User not found");
         }
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHasher.matches(password, user.getPassword())) {
+            loginThrottle.recordFailure(email);
             throw new RuntimeException("Invalid credentials");
         }
 
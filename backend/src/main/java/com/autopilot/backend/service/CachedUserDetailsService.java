@@ -0,0 +1,49 @@
+package com.autopilot.backend.service;
+
+import java.time.Duration;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded, time-limited cache in front of the user lookup, so an
+ * authenticated request does not cost a database round trip. Code that
+ * changes a user must call {@link #evict(String)}; the time limit bounds how
+ * long a change made elsewhere can go unnoticed. Unknown users are not cached.
+ * Hit rate and size are published as cache.* metrics with {@code cache=users}.
+ */
+public class CachedUserDetailsService implements UserDetailsService {
+
+    private final UserDetailsService delegate;
+    private final Cache<String, UserDetails> users;
+
+    public CachedUserDetailsService(UserDetailsService delegate, long maxSize, Duration timeToLive,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        // A miss loads through the delegate; UsernameNotFoundException propagates and nothing is cached
+        return users.get(username, delegate::loadUserByUsername);
+    }
+
+    public void evict(String username) {
+        if (username != null) {
+            users.invalidate(username);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.autopilot.backend.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cancellation signal of a run or of a single task.
+ * <p>
+ * Work that blocks on something outside the JVM (a JDBC statement, a remote
+ * command, an HTTP exchange) registers a hook that aborts it; cancelling runs
+ * every registered hook once. A task's signal is a {@link #child} of its run's,
+ * so cancelling the run cancels its tasks while a task timeout stays local.
+ */
+public class Cancellation {
+
+    private static final Logger logger = LoggerFactory.getLogger(Cancellation.class);
+
+    public enum Reason {
+        CANCELLED, TIMED_OUT
+    }
+
+    /** Removes a hook that is no longer needed, e.g. once the statement it cancels has completed. */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Hook {
+        final Runnable action;
+        final AtomicBoolean fired = new AtomicBoolean();
+
+        Hook(Runnable action) {
+            this.action = action;
+        }
+
+        void fire() {
+            if (fired.compareAndSet(false, true)) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Cancellation hook failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private final Set<Hook> hooks = ConcurrentHashMap.newKeySet();
+    private volatile Reason reason;
+    private Registration parentRegistration;
+
+    /** A signal cancelled together with this one, and that can also be cancelled on its own. */
+    public Cancellation child() {
+        Cancellation child = new Cancellation();
+        child.parentRegistration = onCancel(() -> child.cancel(reason));
+        return child;
+    }
+
+    /** Stop following the parent; call once the task is over so the run does not keep it around. */
+    public void detach() {
+        if (parentRegistration != null) {
+            parentRegistration.close();
+        }
+    }
+
+    /** Run {@code action} on cancellation, right away if already cancelled. */
+    public Registration onCancel(Runnable action) {
+        Hook hook = new Hook(action);
+        hooks.add(hook);
+        if (reason != null) {
+            hooks.remove(hook);
+            hook.fire();
+        }
+        return () -> hooks.remove(hook);
+    }
+
+    /** @return whether this call cancelled it; later calls keep the first reason. */
+    public boolean cancel(Reason reason) {
+        synchronized (this) {
+            if (this.reason != null) {
+                return false;
+            }
+            this.reason = reason;
+        }
+        for (Hook hook : hooks) {
+            hooks.remove(hook);
+            hook.fire();
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    /** Why it was cancelled, or {@code null} if it was not. */
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,194 @@
+package com.autopilot.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.autopilot.backend.config.DBConfig;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Connection pools for the target databases of {@code db} tasks, one per
+ * (dbUrl, dbUsername, password). Connections are reused across tasks and runs;
+ * a pool that has been idle for a while is closed so forgotten targets do not
+ * hold sessions open. A changed password gets a pool of its own, and the old
+ * one is only closed by that eviction, once no task is using it. Pools report
+ * to Micrometer as {@code hikaricp.connections.*}.
+ */
+@Component
+public class DataSourceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceRegistry.class);
+
+    private static final class PoolKey {
+        final String jdbcUrl;
+        final String username;
+        // Digest rather than the password itself, so keys hold no secrets
+        final String credentials;
+
+        PoolKey(String jdbcUrl, String username, String password) {
+            this.jdbcUrl = jdbcUrl;
+            this.username = username;
+            this.credentials = digest(password);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PoolKey)) {
+                return false;
+            }
+            PoolKey other = (PoolKey) o;
+            return jdbcUrl.equals(other.jdbcUrl) && Objects.equals(username, other.username)
+                    && credentials.equals(other.credentials);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(jdbcUrl, username, credentials);
+        }
+
+        private static String digest(String password) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256")
+                        .digest(String.valueOf(password).getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(hash);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final class Pool {
+        final HikariDataSource dataSource;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        Pool(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final Map<PoolKey, Pool> pools = new ConcurrentHashMap<>();
+    private final AtomicInteger poolCounter = new AtomicInteger();
+
+    private final int maxPoolSize;
+    private final long connectionTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long evictAfterMs;
+    private final MicrometerMetricsTrackerFactory metricsTrackerFactory;
+
+    public DataSourceRegistry(@Value("${autopilot.db.pool.max-size:5}") int maxPoolSize,
+            @Value("${autopilot.db.pool.connection-timeout-ms:10000}") long connectionTimeoutMs,
+            @Value("${autopilot.db.pool.idle-timeout-ms:300000}") long idleTimeoutMs,
+            @Value("${autopilot.db.pool.evict-after-ms:900000}") long evictAfterMs,
+            MeterRegistry meterRegistry) {
+        this.maxPoolSize = maxPoolSize;
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.evictAfterMs = evictAfterMs;
+        this.metricsTrackerFactory = new MicrometerMetricsTrackerFactory(meterRegistry);
+    }
+
+    /**
+     * Plain host/service strings are treated as Oracle thin descriptors, as
+     * before; a full {@code jdbc:} URL is used as-is (e.g. H2 for local testing).
+     */
+    public static String jdbcUrl(DBConfig config) {
+        String dbUrl = config.getDbUrl();
+        return dbUrl.startsWith("jdbc:") ? dbUrl : "jdbc:oracle:thin:@" + dbUrl;
+    }
+
+    public Connection getConnection(DBConfig config) throws SQLException {
+        PoolKey key = new PoolKey(jdbcUrl(config), config.getDbUsername(), config.getDbPassword());
+        Pool pool = pools.compute(key, (k, existing) -> {
+            Pool current = existing;
+            if (current == null) {
+                current = new Pool(createDataSource(k, config.getDbPassword()));
+            }
+            // Touched under the map lock so a concurrent eviction cannot close it under us
+            current.lastUsed = System.currentTimeMillis();
+            return current;
+        });
+        return pool.dataSource.getConnection();
+    }
+
+    private HikariDataSource createDataSource(PoolKey key, String password) {
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName("autopilot-db-" + poolCounter.incrementAndGet());
+        hikari.setJdbcUrl(key.jdbcUrl);
+        hikari.setUsername(key.username);
+        hikari.setPassword(password);
+        hikari.setMaximumPoolSize(maxPoolSize);
+        hikari.setMinimumIdle(0);
+        hikari.setIdleTimeout(idleTimeoutMs);
+        hikari.setConnectionTimeout(connectionTimeoutMs);
+        // Start lazily so an unreachable target fails the task, not the pool construction
+        hikari.setInitializationFailTimeout(-1);
+        hikari.setRegisterMbeans(true);
+        hikari.setMetricsTrackerFactory(metricsTrackerFactory);
+        logger.info("Creating connection pool {} for {} as {}", hikari.getPoolName(), key.jdbcUrl, key.username);
+        return new HikariDataSource(hikari);
+    }
+
+    @Scheduled(fixedDelayString = "${autopilot.db.pool.eviction-interval-ms:60000}")
+    public void evictIdlePools() {
+        long cutoff = System.currentTimeMillis() - evictAfterMs;
+        for (PoolKey key : pools.keySet()) {
+            pools.computeIfPresent(key, (k, pool) -> {
+                HikariPoolMXBean bean = pool.dataSource.getHikariPoolMXBean();
+                if (pool.lastUsed >= cutoff || (bean != null && bean.getActiveConnections() > 0)) {
+                    return pool;
+                }
+                logger.info("Closing idle connection pool {}", pool.dataSource.getPoolName());
+                pool.dataSource.close();
+                return null;
+            });
+        }
+    }
+
+    /** Snapshot of every pool: target, and active/idle/total/waiting connection counts. */
+    public List<Map<String, Object>> getPoolStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        pools.forEach((key, pool) -> {
+            HikariPoolMXBean bean = pool.dataSource.getHikariPoolMXBean();
+            Map<String, Object> pooled = new LinkedHashMap<>();
+            pooled.put("pool", pool.dataSource.getPoolName());
+            pooled.put("url", key.jdbcUrl);
+            pooled.put("username", key.username);
+            pooled.put("active", bean != null ? bean.getActiveConnections() : 0);
+            pooled.put("idle", bean != null ? bean.getIdleConnections() : 0);
+            pooled.put("total", bean != null ? bean.getTotalConnections() : 0);
+            pooled.put("waiting", bean != null ? bean.getThreadsAwaitingConnection() : 0);
+            stats.add(pooled);
+        });
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.values().forEach(pool -> pool.dataSource.close());
+        pools.clear();
+    }
+}
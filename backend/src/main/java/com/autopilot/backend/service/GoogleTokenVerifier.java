@@ -0,0 +1,65 @@
+package com.autopilot.backend.service;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.json.jackson2.JacksonFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Verifies Google sign-in ID tokens with one shared verifier. The HTTP
+ * transport is created once and Google's signing certificates are fetched
+ * once, then kept until the Cache-Control max-age of the certs response runs
+ * out, at which point the next verification refreshes them.
+ */
+@Service
+public class GoogleTokenVerifier {
+
+    private final GoogleIdTokenVerifier verifier;
+    private final MeterRegistry meterRegistry;
+
+    public GoogleTokenVerifier(@Value("${google.client.id}") String clientId,
+            @Value("${google.id-token.certs-url:https://www.googleapis.com/oauth2/v1/certs}") String certsUrl,
+            MeterRegistry meterRegistry) throws GeneralSecurityException, IOException {
+        GooglePublicKeysManager publicKeys = new GooglePublicKeysManager.Builder(
+                GoogleNetHttpTransport.newTrustedTransport(),
+                JacksonFactory.getDefaultInstance())
+                .setPublicCertsEncodedUrl(certsUrl)
+                .build();
+        this.verifier = new GoogleIdTokenVerifier.Builder(publicKeys)
+                .setAudience(Collections.singletonList(clientId))
+                .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return the token's payload, or {@code null} if the token is not a valid
+     *         ID token for this client
+     */
+    public GoogleIdToken.Payload verify(String idToken) throws GeneralSecurityException, IOException {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            GoogleIdToken token = verifier.verify(idToken);
+            outcome = token != null ? "valid" : "invalid";
+            return token != null ? token.getPayload() : null;
+        } finally {
+            Timer.builder("autopilot.auth.google.verify")
+                    .description("Google ID token verification, including certificate refreshes")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.autopilot.backend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * One circuit breaker per upstream host (scheme, host and port) of API tasks.
+ * After {@code failure-threshold} consecutive failures the breaker opens and
+ * calls to that host fail fast for {@code open-seconds}; then a single probe
+ * is let through, which closes the breaker on success or opens it again.
+ * Hosts unused for an hour are forgotten.
+ */
+@Component
+public class HostCircuitBreakers {
+
+    private static final Logger logger = LoggerFactory.getLogger(HostCircuitBreakers.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, Breaker> breakers = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    @Autowired
+    public HostCircuitBreakers(@Value("${autopilot.api.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${autopilot.api.breaker.open-seconds:30}") long openSeconds,
+            MeterRegistry meterRegistry) {
+        this(failureThreshold, Duration.ofSeconds(openSeconds), System::nanoTime);
+        Gauge.builder("autopilot.api.breakers.open", this, HostCircuitBreakers::openCount)
+                .description("Upstream hosts whose circuit breaker is not closed")
+                .register(meterRegistry);
+    }
+
+    HostCircuitBreakers(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Whether a call to {@code host} may go ahead. Every permitted call must be
+     * followed by {@link #record} or {@link #release}.
+     */
+    public boolean tryAcquire(String host) {
+        return breakers.get(host, h -> new Breaker()).tryAcquire(host);
+    }
+
+    /** Outcome of a permitted call; {@code success} means the host answered and is not failing. */
+    public void record(String host, boolean success) {
+        breakers.get(host, h -> new Breaker()).record(host, success);
+    }
+
+    /** End a permitted call without an outcome, e.g. when it was cancelled. */
+    public void release(String host) {
+        Breaker breaker = breakers.getIfPresent(host);
+        if (breaker != null) {
+            breaker.release();
+        }
+    }
+
+    public State state(String host) {
+        Breaker breaker = breakers.getIfPresent(host);
+        return breaker != null ? breaker.state() : State.CLOSED;
+    }
+
+    /** Every known host with its state, consecutive failures and, when open, when the next probe is allowed. */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> hosts = new TreeMap<>();
+        long now = nanoClock.getAsLong();
+        breakers.asMap().forEach((host, breaker) -> hosts.put(host, breaker.view(now)));
+        return hosts;
+    }
+
+    private double openCount() {
+        return breakers.asMap().values().stream().filter(b -> b.state() != State.CLOSED).count();
+    }
+
+    private final class Breaker {
+
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openUntil;
+        private boolean probeInFlight;
+
+        synchronized boolean tryAcquire(String host) {
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openUntil < 0) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                logger.info("Circuit half-open for {}, sending a probe", host);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+            }
+            return true;
+        }
+
+        synchronized void record(String host, boolean success) {
+            probeInFlight = false;
+            if (success) {
+                if (state != State.CLOSED) {
+                    logger.info("Circuit closed for {}", host);
+                }
+                state = State.CLOSED;
+                consecutiveFailures = 0;
+                return;
+            }
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = State.OPEN;
+                openUntil = nanoClock.getAsLong() + openNanos;
+                logger.warn("Circuit opened for {} after {} consecutive failures", host, consecutiveFailures);
+            }
+        }
+
+        synchronized void release() {
+            probeInFlight = false;
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        synchronized Map<String, Object> view(long now) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("state", state);
+            view.put("consecutiveFailures", consecutiveFailures);
+            if (state == State.OPEN) {
+                view.put("retryAt", Instant.now().plusNanos(Math.max(0, openUntil - now)));
+            }
+            return view;
+        }
+    }
+}
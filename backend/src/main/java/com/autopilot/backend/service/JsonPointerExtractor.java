@@ -0,0 +1,190 @@
+package com.autopilot.backend.service;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+/**
+ * Picks values out of a UTF-8 JSON document by JSON Pointer (RFC 6901) while
+ * the document is fed in chunks, without building a tree. Scalars are taken
+ * as their text (strings unquoted), objects and arrays as compact JSON.
+ * Parsing stops as soon as every pointer has been found, so the rest of a
+ * large body costs nothing.
+ */
+public class JsonPointerExtractor {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final Pattern VARIABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_.-]*");
+    // Objects and arrays captured as a value are bounded like the response preview
+    private static final int MAX_VALUE_CHARS = 64 * 1024;
+
+    private final Map<String, List<String>> namesByPointer = new HashMap<>();
+    private final int maxDepth;
+    private final int expected;
+    private final JsonParser parser;
+    private final Map<String, String> values = new LinkedHashMap<>();
+    private String error;
+
+    private List<String> captureNames;
+    private StringWriter captureWriter;
+    private JsonGenerator capture;
+    private int captureDepth;
+
+    /** @param pointersByName variable name to JSON Pointer, see {@link #validate} */
+    public JsonPointerExtractor(Map<String, String> pointersByName) {
+        int depth = 0;
+        for (Map.Entry<String, String> entry : pointersByName.entrySet()) {
+            JsonPointer pointer = JsonPointer.compile(entry.getValue());
+            namesByPointer.computeIfAbsent(pointer.toString(), p -> new ArrayList<>()).add(entry.getKey());
+            depth = Math.max(depth, segments(pointer));
+        }
+        this.maxDepth = depth;
+        this.expected = pointersByName.size();
+        try {
+            this.parser = jsonFactory.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Reject variable names that cannot be referenced as {@code ${name}} and malformed pointers. */
+    public static void validate(Map<String, String> pointersByName) {
+        for (Map.Entry<String, String> entry : pointersByName.entrySet()) {
+            if (!VARIABLE_NAME.matcher(entry.getKey()).matches()) {
+                throw new IllegalArgumentException("Invalid variable name: " + entry.getKey());
+            }
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("Missing JSON pointer for variable " + entry.getKey());
+            }
+            JsonPointer.compile(entry.getValue());
+        }
+    }
+
+    private static int segments(JsonPointer pointer) {
+        int count = 0;
+        for (JsonPointer p = pointer; !p.matches(); p = p.tail()) {
+            count++;
+        }
+        return count;
+    }
+
+    /** Parse the next chunk. Never throws: a malformed document is reported by {@link #getError()}. */
+    public void feed(byte[] b, int off, int len) {
+        if (isDone()) {
+            return;
+        }
+        try {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(b, off, off + len);
+            drain();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** Called at the end of the document; reports pointers that matched nothing. */
+    public void finish() {
+        if (!isDone()) {
+            try {
+                ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+                drain();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+        if (error == null && values.size() < expected) {
+            List<String> missing = new ArrayList<>();
+            namesByPointer.forEach((pointer, names) -> {
+                if (!values.containsKey(names.get(0))) {
+                    missing.add(pointer);
+                }
+            });
+            error = "no value at " + String.join(", ", missing);
+        }
+    }
+
+    private boolean isDone() {
+        return error != null || values.size() == expected;
+    }
+
+    private void fail(IOException e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        // Jackson appends the source location on new lines
+        int lineBreak = message.indexOf('\n');
+        error = "invalid JSON: " + (lineBreak > 0 ? message.substring(0, lineBreak) : message);
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!isDone() && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (capture != null) {
+                captureToken(token);
+                continue;
+            }
+            if (token == JsonToken.FIELD_NAME || token.isStructEnd()) {
+                continue;
+            }
+            // A container's own context is already open, its position is in the parent's
+            JsonStreamContext context = token.isStructStart()
+                    ? parser.getParsingContext().getParent()
+                    : parser.getParsingContext();
+            if (context.getNestingDepth() > maxDepth) {
+                continue;
+            }
+            List<String> names = namesByPointer.get(context.pathAsPointer().toString());
+            if (names == null) {
+                continue;
+            }
+            if (token.isStructStart()) {
+                captureNames = names;
+                captureWriter = new StringWriter();
+                capture = jsonFactory.createGenerator(captureWriter);
+                captureDepth = 0;
+                captureToken(token);
+            } else {
+                String value = token == JsonToken.VALUE_NULL ? "null" : parser.getText();
+                names.forEach(name -> values.put(name, value));
+            }
+        }
+    }
+
+    private void captureToken(JsonToken token) throws IOException {
+        capture.copyCurrentEvent(parser);
+        capture.flush();
+        if (captureWriter.getBuffer().length() > MAX_VALUE_CHARS) {
+            error = "value at " + parser.getParsingContext().pathAsPointer() + " is larger than "
+                    + MAX_VALUE_CHARS + " characters";
+            return;
+        }
+        if (token.isStructStart()) {
+            captureDepth++;
+        } else if (token.isStructEnd() && --captureDepth == 0) {
+            capture.close();
+            String value = captureWriter.toString();
+            captureNames.forEach(name -> values.put(name, value));
+            capture = null;
+        }
+    }
+
+    /** The values found so far, by variable name. */
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    /** Why extraction failed, or {@code null}. */
+    public String getError() {
+        return error;
+    }
+}
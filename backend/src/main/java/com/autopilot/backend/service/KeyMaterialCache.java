@@ -0,0 +1,110 @@
+package com.autopilot.backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.apache.sshd.common.NamedResource;
+import org.apache.sshd.common.config.keys.FilePasswordProvider;
+import org.apache.sshd.common.util.security.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.autopilot.backend.config.ServerConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Decrypted SSH keys, kept in memory so a key used by many tasks is decrypted
+ * once. Entries are keyed by a hash of the PEM file's content and password
+ * rather than its path: an edited key file is picked up on the next task, and
+ * the same key copied to several paths is decrypted only once. The cache is
+ * bounded and entries expire when unused. Key files are only ever read.
+ */
+@Component
+public class KeyMaterialCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyMaterialCache.class);
+
+    private final Cache<String, List<KeyPair>> keys;
+
+    public KeyMaterialCache(@Value("${autopilot.ssh.key-cache.max-size:100}") long maxSize,
+            @Value("${autopilot.ssh.key-cache.idle-timeout-ms:1800000}") long idleTimeoutMillis) {
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMillis(idleTimeoutMillis))
+                .build();
+    }
+
+    /** The key pairs of the task's PEM file, decrypted with its PemFilePassword. */
+    public List<KeyPair> load(ServerConfig config) throws IOException {
+        Path keyPath = Path.of(config.getPrivateKeyPemFilepath());
+        byte[] content = Files.readAllBytes(keyPath);
+        String password = config.getPemFilePassword() != null && !config.getPemFilePassword().isEmpty()
+                ? config.getPemFilePassword()
+                : null;
+
+        try {
+            return keys.get(cacheKey(content, password), k -> decrypt(keyPath, content, password));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public long size() {
+        keys.cleanUp();
+        return keys.estimatedSize();
+    }
+
+    private static List<KeyPair> decrypt(Path keyPath, byte[] content, String password) {
+        logger.info("Decrypting SSH key {}", keyPath);
+        FilePasswordProvider passwordProvider = password != null
+                ? FilePasswordProvider.of(password)
+                : FilePasswordProvider.EMPTY;
+        try (InputStream in = new ByteArrayInputStream(content)) {
+            Iterable<KeyPair> loaded = SecurityUtils.loadKeyPairIdentities(null,
+                    NamedResource.ofName(keyPath.toString()), in, passwordProvider);
+            List<KeyPair> keyPairs = new ArrayList<>();
+            if (loaded != null) {
+                loaded.forEach(keyPairs::add);
+            }
+            if (keyPairs.isEmpty()) {
+                throw new IOException("❌ No private key found in PEM file: " + keyPath.toAbsolutePath());
+            }
+            return List.copyOf(keyPairs);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (GeneralSecurityException e) {
+            throw new UncheckedIOException(new IOException("❌ Failed to load PEM file: " + e.getMessage(), e));
+        }
+    }
+
+    private static String cacheKey(byte[] content, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content);
+            // The password is part of the key, so a wrong one never hits a cached decryption
+            if (password != null) {
+                digest.update((byte) 0);
+                digest.update(password.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
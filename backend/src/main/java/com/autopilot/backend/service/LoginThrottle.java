@@ -0,0 +1,95 @@
+package com.autopilot.backend.service;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Fixed-window attempt limits per account and per client IP.
+ * <p>
+ * Every attempt counts against the client address, but only failed logins
+ * count against the account, so a user who signs in often is never locked out
+ * by their own successes.
+ * <p>
+ * Counters live in a fixed array of stripes indexed by a hash of the key, so
+ * memory stays constant however many accounts or addresses an attacker cycles
+ * through. Each stripe packs its window number and count into one long that is
+ * updated with a CAS, so there are no locks. Keys that share a stripe share a
+ * budget; with enough stripes that is rare and errs on the side of throttling.
+ */
+@Component
+public class LoginThrottle {
+
+    private final AtomicLongArray accountStripes;
+    private final AtomicLongArray ipStripes;
+    private final long windowMillis;
+    private final int accountLimit;
+    private final int ipLimit;
+
+    public LoginThrottle(@Value("${autopilot.auth.throttle.stripes:4096}") int stripes,
+            @Value("${autopilot.auth.throttle.window-seconds:900}") long windowSeconds,
+            @Value("${autopilot.auth.throttle.account-limit:10}") int accountLimit,
+            @Value("${autopilot.auth.throttle.ip-limit:100}") int ipLimit) {
+        this.accountStripes = new AtomicLongArray(stripes);
+        this.ipStripes = new AtomicLongArray(stripes);
+        this.windowMillis = windowSeconds * 1000;
+        this.accountLimit = accountLimit;
+        this.ipLimit = ipLimit;
+    }
+
+    /**
+     * Count an attempt for the client address and reject it with 429 once the
+     * address is over its limit, or the account already has its limit of
+     * failures, for the current window. Either key may be null.
+     */
+    public void acquire(String account, String clientIp) {
+        long window = System.currentTimeMillis() / windowMillis;
+        boolean accountOver = account != null
+                && count(accountStripes, account.toLowerCase(Locale.ROOT), window) >= accountLimit;
+        boolean ipOver = clientIp != null && increment(ipStripes, clientIp, window) > ipLimit;
+        if (accountOver || ipOver) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many attempts, please try again later");
+        }
+    }
+
+    /** Count a failed login against the account's budget. */
+    public void recordFailure(String account) {
+        if (account != null) {
+            increment(accountStripes, account.toLowerCase(Locale.ROOT), System.currentTimeMillis() / windowMillis);
+        }
+    }
+
+    private static long count(AtomicLongArray stripes, String key, long window) {
+        long packed = stripes.get(stripeIndex(key, stripes.length()));
+        return (packed >>> 32) == (window & 0xFFFFFFFFL) ? packed & 0xFFFFFFFFL : 0;
+    }
+
+    private static long increment(AtomicLongArray stripes, String key, long window) {
+        int index = stripeIndex(key, stripes.length());
+        while (true) {
+            long packed = stripes.get(index);
+            long stripeWindow = packed >>> 32;
+            long count = packed & 0xFFFFFFFFL;
+            long next;
+            if (stripeWindow != (window & 0xFFFFFFFFL)) {
+                count = 1;
+            } else if (count < 0xFFFFFFFFL) {
+                count++;
+            }
+            next = ((window & 0xFFFFFFFFL) << 32) | count;
+            if (stripes.compareAndSet(index, packed, next)) {
+                return count;
+            }
+        }
+    }
+
+    private static int stripeIndex(String key, int stripes) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), stripes);
+    }
+}
@@ -0,0 +1,285 @@
+package com.autopilot.backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterOutputStream;
+import java.util.zip.ZipException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Streams API response bodies into {@link ApiResponseBody} instances as they
+ * arrive, decoding gzip and deflate on the fly, so no body is ever held in
+ * memory beyond the configured limit.
+ */
+@Component
+public class ResponseCapture {
+
+    private final int memoryLimit;
+    private final long fileLimit;
+    private final Path spillDir;
+    private final int previewChars;
+    private final Counter wireBytes;
+    private final Counter decodedBytes;
+    private final Counter spills;
+
+    public ResponseCapture(@Value("${autopilot.api.response.max-memory-bytes:1048576}") int memoryLimit,
+            @Value("${autopilot.api.response.max-file-bytes:1073741824}") long fileLimit,
+            @Value("${autopilot.api.response.spill-to-file:true}") boolean spillToFile,
+            @Value("${autopilot.api.response.spill-dir:${java.io.tmpdir}/autopilot-responses}") String spillDir,
+            @Value("${autopilot.api.response.preview-chars:2000}") int previewChars,
+            MeterRegistry meterRegistry) {
+        this.memoryLimit = Math.max(0, memoryLimit);
+        this.fileLimit = Math.max(this.memoryLimit, fileLimit);
+        this.spillDir = spillToFile ? Path.of(spillDir) : null;
+        this.previewChars = Math.max(0, previewChars);
+        this.wireBytes = Counter.builder("autopilot.api.response.bytes")
+                .description("API response body bytes, as received and after Content-Encoding was decoded")
+                .baseUnit("bytes")
+                .tag("stage", "wire")
+                .register(meterRegistry);
+        this.decodedBytes = Counter.builder("autopilot.api.response.bytes")
+                .description("API response body bytes, as received and after Content-Encoding was decoded")
+                .baseUnit("bytes")
+                .tag("stage", "decoded")
+                .register(meterRegistry);
+        this.spills = Counter.builder("autopilot.api.response.spills")
+                .description("API response bodies too large for memory, written to a temporary file")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Body handler for {@code HttpClient.sendAsync}; the caller must close the body it gets.
+     *
+     * @param extract variable name to JSON pointer, evaluated while the body streams in; may be {@code null}
+     */
+    public HttpResponse.BodyHandler<ApiResponseBody> handler(Map<String, String> extract) {
+        return responseInfo -> {
+            String encoding = responseInfo.headers().firstValue("Content-Encoding")
+                    .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                    .orElse("identity");
+            Charset charset = charsetOf(responseInfo.headers().firstValue("Content-Type").orElse(null));
+            ApiResponseBody body = new ApiResponseBody(encoding, charset, memoryLimit, fileLimit, spillDir,
+                    previewChars);
+            if (extract != null && !extract.isEmpty()) {
+                body.extractWith(new JsonPointerExtractor(extract));
+            }
+            return new CapturingSubscriber(body, decoder(encoding, body.sink()));
+        };
+    }
+
+    static Charset charsetOf(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                String[] pair = parameter.trim().split("=", 2);
+                if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                    try {
+                        return Charset.forName(pair[1].trim().replace("\"", ""));
+                    } catch (IllegalArgumentException e) {
+                        break;
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /** Unknown encodings (e.g. br) are captured as received. */
+    private static OutputStream decoder(String encoding, OutputStream target) {
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new InflatingOutputStream(target, true);
+            case "deflate":
+                return new InflatingOutputStream(target, false);
+            default:
+                return target;
+        }
+    }
+
+    private final class CapturingSubscriber implements HttpResponse.BodySubscriber<ApiResponseBody> {
+
+        private final ApiResponseBody body;
+        private final OutputStream decoder;
+        private final CompletableFuture<ApiResponseBody> result = new CompletableFuture<>();
+        private final byte[] chunk = new byte[8192];
+        private Flow.Subscription subscription;
+
+        CapturingSubscriber(ApiResponseBody body, OutputStream decoder) {
+            this.body = body;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public CompletionStage<ApiResponseBody> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    body.countWireBytes(buffer.remaining());
+                    wireBytes.increment(buffer.remaining());
+                    while (buffer.hasRemaining()) {
+                        int length = Math.min(chunk.length, buffer.remaining());
+                        buffer.get(chunk, 0, length);
+                        decoder.write(chunk, 0, length);
+                    }
+                }
+                subscription.request(1);
+            } catch (IOException e) {
+                subscription.cancel();
+                onError(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            body.close();
+            result.completeExceptionally(error);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                decoder.close();
+                body.finish();
+                decodedBytes.increment(body.getSize());
+                if (body.getFile() != null) {
+                    spills.increment();
+                }
+                result.complete(body);
+            } catch (IOException e) {
+                onError(e);
+            }
+        }
+    }
+
+    /**
+     * Decodes gzip or zlib-wrapped deflate as it is written. The gzip header is
+     * parsed here and its trailer ignored; for deflate, a raw stream without the
+     * zlib wrapper (as some servers send) is detected from the first two bytes.
+     */
+    private static final class InflatingOutputStream extends OutputStream {
+
+        // Header flags (RFC 1952)
+        private static final int FHCRC = 2;
+        private static final int FEXTRA = 4;
+        private static final int FNAME = 8;
+        private static final int FCOMMENT = 16;
+        private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+        private final OutputStream target;
+        private final boolean gzip;
+        private final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        private Inflater inflaterState;
+        private InflaterOutputStream inflater;
+
+        InflatingOutputStream(OutputStream target, boolean gzip) {
+            this.target = target;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (inflater != null) {
+                inflater.write(b, off, len);
+                return;
+            }
+            header.write(b, off, len);
+            byte[] buffered = header.toByteArray();
+            int headerLength = gzip ? gzipHeaderLength(buffered) : 0;
+            if (headerLength < 0 || (!gzip && buffered.length < 2)) {
+                if (buffered.length > MAX_HEADER_BYTES) {
+                    throw new ZipException("Invalid gzip header");
+                }
+                return;
+            }
+            boolean raw = gzip || !isZlibHeader(buffered);
+            inflaterState = new Inflater(raw);
+            inflater = new InflaterOutputStream(target, inflaterState);
+            inflater.write(buffered, headerLength, buffered.length - headerLength);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (inflater != null) {
+                try {
+                    inflater.close();
+                } finally {
+                    inflaterState.end();
+                }
+            } else if (header.size() > 0) {
+                throw new ZipException("Truncated " + (gzip ? "gzip" : "deflate") + " body");
+            }
+        }
+
+        /** Length of the gzip header at the start of {@code data}, or -1 if more bytes are needed. */
+        private static int gzipHeaderLength(byte[] data) throws ZipException {
+            if (data.length < 10) {
+                return -1;
+            }
+            if ((data[0] & 0xff) != 0x1f || (data[1] & 0xff) != 0x8b || data[2] != 8) {
+                throw new ZipException("Not in gzip format");
+            }
+            int flags = data[3] & 0xff;
+            int pos = 10;
+            if ((flags & FEXTRA) != 0) {
+                if (data.length < pos + 2) {
+                    return -1;
+                }
+                pos += 2 + ((data[pos] & 0xff) | (data[pos + 1] & 0xff) << 8);
+            }
+            for (int field : new int[] { FNAME, FCOMMENT }) {
+                if ((flags & field) != 0) {
+                    while (pos < data.length && data[pos] != 0) {
+                        pos++;
+                    }
+                    if (pos >= data.length) {
+                        return -1;
+                    }
+                    pos++;
+                }
+            }
+            if ((flags & FHCRC) != 0) {
+                pos += 2;
+            }
+            return pos <= data.length ? pos : -1;
+        }
+
+        private static boolean isZlibHeader(byte[] data) {
+            int cmf = data[0] & 0xff;
+            int flg = data[1] & 0xff;
+            return (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+        }
+    }
+}
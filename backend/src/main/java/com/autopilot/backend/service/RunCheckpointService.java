@@ -0,0 +1,134 @@
+package com.autopilot.backend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.autopilot.backend.loader.ExecutionPlan;
+import com.autopilot.backend.loader.PlannedTask;
+import com.autopilot.backend.model.Run;
+import com.autopilot.backend.model.RunCheckpoint;
+
+/**
+ * Checkpoints queued runs task by task in the {@code run_checkpoints}
+ * collection. Checkpoint writes that fail are logged; the run goes on, it
+ * just cannot be resumed as precisely.
+ */
+@Service
+public class RunCheckpointService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunCheckpointService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration retention;
+
+    public RunCheckpointService(MongoTemplate mongoTemplate,
+            @Value("${autopilot.runs.checkpoint.retention-days:7}") long retentionDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    /**
+     * Store the run's task fingerprints and return a policy that skips the
+     * {@code completed} tasks (carried over from the run being resumed) and
+     * checkpoints every task that succeeds.
+     */
+    public TaskSkipPolicy begin(Run run, ExecutionPlan plan, Set<String> completed) {
+        Map<PlannedTask, String> keys = keys(plan);
+
+        RunCheckpoint checkpoint = new RunCheckpoint();
+        checkpoint.setId(run.getId());
+        checkpoint.setOwner(run.getOwner());
+        checkpoint.setResumedFrom(run.getResumedFrom());
+        checkpoint.setStartedAt(Instant.now());
+        checkpoint.setTasks(taskCheckpoints(plan));
+        checkpoint.setCompleted(new ArrayList<>(completed));
+        checkpoint.setExpiresAt(Instant.now().plus(retention));
+        try {
+            mongoTemplate.save(checkpoint);
+        } catch (RuntimeException e) {
+            logger.error("❌ Could not checkpoint run {}: {}", run.getId(), e.getMessage());
+        }
+
+        return new TaskSkipPolicy() {
+            @Override
+            public boolean isUpToDate(PlannedTask task) {
+                return completed.contains(keys.get(task));
+            }
+
+            @Override
+            public void onSucceeded(PlannedTask task) {
+                try {
+                    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(run.getId())),
+                            new Update().addToSet("completed", keys.get(task)), RunCheckpoint.class);
+                } catch (RuntimeException e) {
+                    logger.error("❌ Could not checkpoint task {} of run {}: {}", keys.get(task), run.getId(),
+                            e.getMessage());
+                }
+            }
+        };
+    }
+
+    public RunCheckpoint find(String owner, String runId) {
+        return mongoTemplate.findOne(new Query(Criteria.where("_id").is(runId).and("owner").is(owner)),
+                RunCheckpoint.class);
+    }
+
+    /**
+     * Keys of the tasks whose inputs differ between the checkpoint and the
+     * plan, including tasks added or removed. Empty when the plan can resume it.
+     */
+    public static List<String> changedTasks(RunCheckpoint checkpoint, ExecutionPlan plan) {
+        List<RunCheckpoint.TaskCheckpoint> before = checkpoint.getTasks() != null ? checkpoint.getTasks() : List.of();
+        List<RunCheckpoint.TaskCheckpoint> now = taskCheckpoints(plan);
+        List<String> changed = new ArrayList<>();
+        for (int i = 0; i < Math.max(before.size(), now.size()); i++) {
+            RunCheckpoint.TaskCheckpoint a = i < before.size() ? before.get(i) : null;
+            RunCheckpoint.TaskCheckpoint b = i < now.size() ? now.get(i) : null;
+            if (a == null || b == null || !a.getKey().equals(b.getKey())
+                    || !Objects.equals(a.getFingerprint(), b.getFingerprint())) {
+                changed.add(a != null ? a.getKey() : b.getKey());
+            }
+        }
+        return changed;
+    }
+
+    // In plan order: phase by phase, tasks in declaration order
+    private static List<RunCheckpoint.TaskCheckpoint> taskCheckpoints(ExecutionPlan plan) {
+        List<RunCheckpoint.TaskCheckpoint> checkpoints = new ArrayList<>();
+        for (ExecutionPlan.Phase phase : plan.getPhases().values()) {
+            List<PlannedTask> tasks = phase.getTasks();
+            for (int i = 0; i < tasks.size(); i++) {
+                checkpoints.add(new RunCheckpoint.TaskCheckpoint(phase.getName() + "#" + i,
+                        TaskFingerprintService.fingerprint(tasks.get(i))));
+            }
+        }
+        return checkpoints;
+    }
+
+    // Identity-keyed, tasks have no equals
+    private static Map<PlannedTask, String> keys(ExecutionPlan plan) {
+        Map<PlannedTask, String> keys = new IdentityHashMap<>();
+        for (ExecutionPlan.Phase phase : plan.getPhases().values()) {
+            List<PlannedTask> tasks = phase.getTasks();
+            for (int i = 0; i < tasks.size(); i++) {
+                keys.put(tasks.get(i), phase.getName() + "#" + i);
+            }
+        }
+        return keys;
+    }
+}
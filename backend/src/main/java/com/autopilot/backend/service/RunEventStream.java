@@ -0,0 +1,267 @@
+package com.autopilot.backend.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.autopilot.backend.model.Run;
+import com.autopilot.backend.model.TaskResult;
+
+/**
+ * Fans the events of one run out to its Server-Sent Events subscribers.
+ * <p>
+ * Events are pushed as they happen and only the most recent ones are kept, so a
+ * client that subscribes right after submitting still sees the start of the run
+ * without the whole output ever being buffered.
+ * <p>
+ * Publishing never touches a client's connection: each subscriber has a bounded
+ * queue that is sent from the event executor, so a slow or stalled client can
+ * never hold up the task threads. A client whose queue overflows is
+ * disconnected, and can reconnect to pick up the most recent events.
+ */
+public class RunEventStream implements TaskListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunEventStream.class);
+
+    private static class Event {
+        final String name;
+        final Map<String, Object> data;
+
+        Event(String name, Map<String, Object> data) {
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    /** One client, fed from its own queue by at most one sender at a time. */
+    private final class Subscriber implements Runnable {
+        final SseEmitter emitter;
+        final BlockingQueue<Event> pending;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean completing;
+        volatile boolean overflowed;
+        volatile boolean done;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(replayCapacity + bufferCapacity);
+        }
+
+        void offer(Event event) {
+            if (!pending.offer(event)) {
+                // Disconnected by the sender: completing the emitter here could block on its write lock
+                overflowed = true;
+                subscribers.remove(this);
+            }
+            schedule();
+        }
+
+        void complete() {
+            completing = true;
+            schedule();
+        }
+
+        void schedule() {
+            if (!done && scheduled.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this);
+                } catch (RejectedExecutionException e) {
+                    done = true;
+                    subscribers.remove(this);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Event event;
+                while (!done && !overflowed && (event = pending.poll()) != null) {
+                    if (!send(emitter, event)) {
+                        done = true;
+                        subscribers.remove(this);
+                    }
+                }
+                if (!done && overflowed) {
+                    done = true;
+                    logger.warn("Run {} event subscriber fell {} events behind, disconnecting it",
+                            runId, pending.size());
+                    emitter.completeWithError(new IOException("Client too slow, events dropped"));
+                } else if (!done && completing && pending.isEmpty()) {
+                    done = true;
+                    emitter.complete();
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // An event or completion may have arrived after the queue was found empty
+            if (!done && (!pending.isEmpty() || completing || overflowed)) {
+                schedule();
+            }
+        }
+    }
+
+    private final String runId;
+    private final int replayCapacity;
+    private final int bufferCapacity;
+    private final Executor sender;
+    private final Deque<Event> replay = new ArrayDeque<>();
+    // Copy-on-write because emitter callbacks may unsubscribe while we iterate
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // Only guards the replay buffer and subscriber list, never held while sending
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean closed;
+
+    /**
+     * @param bufferCapacity events a subscriber may fall behind before it is disconnected
+     * @param sender         sends queued events to the clients
+     */
+    public RunEventStream(String runId, int replayCapacity, int bufferCapacity, Executor sender) {
+        this.runId = runId;
+        this.replayCapacity = replayCapacity;
+        this.bufferCapacity = bufferCapacity;
+        this.sender = sender;
+    }
+
+    public void subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        lock.lock();
+        try {
+            replay.forEach(subscriber::offer);
+            if (closed) {
+                subscriber.complete();
+                return;
+            }
+            subscribers.add(subscriber);
+            subscriber.schedule();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.done = true;
+        subscribers.remove(subscriber);
+    }
+    @Override
+    public void onPhaseStart(String phase) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("phase", phase);
+        publish("phase-start", data);
+    }
+
+    @Override
+    public void onTaskStart(String phase, int index, String id, String type) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("phase", phase);
+        data.put("task", index + 1);
+        data.put("id", id);
+        data.put("type", type);
+        data.put("line", "Task #" + (index + 1) + ": type = " + type);
+        publish("task-start", data);
+    }
+
+    @Override
+    public void onTaskOutput(String phase, int index, String line) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("phase", phase);
+        data.put("task", index + 1);
+        data.put("line", line);
+        publish("task-output", data);
+    }
+
+    @Override
+    public void onTaskFinish(String phase, TaskResult result) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("phase", phase);
+        data.put("task", result.getIndex() + 1);
+        data.put("id", result.getId());
+        data.put("type", result.getType());
+        data.put("status", result.getStatus());
+        data.put("durationMs", result.getDurationMillis());
+        data.put("output", result.getOutput());
+        ApiResponseBody body = result.getResponseBody();
+        if (body != null) {
+            Map<String, Object> responseBody = new HashMap<>();
+            responseBody.put("size", body.getSize());
+            responseBody.put("wireBytes", body.getWireBytes());
+            responseBody.put("truncated", body.isTruncated());
+            responseBody.put("url", "/api/auth/runs/" + runId + "/tasks/" + phase + "/" + (result.getIndex() + 1)
+                    + "/body");
+            data.put("responseBody", responseBody);
+        }
+        publish("task-finish", data);
+    }
+
+    @Override
+    public void onPhaseFinish(String phase) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("phase", phase);
+        publish("phase-finish", data);
+    }
+
+    /** Publish the final status of the run and complete every subscriber once it has been sent. */
+    public void close(Run run) {
+        lock.lock();
+        try {
+            Map<String, Object> data = new HashMap<>();
+            data.put("runId", runId);
+            data.put("status", run.getStatus());
+            publish("run-finish", data);
+            closed = true;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.complete();
+            }
+            subscribers.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publish(String name, Map<String, Object> data) {
+        lock.lock();
+        try {
+            Event event = new Event(name, data);
+            if (replayCapacity > 0) {
+                if (replay.size() == replayCapacity) {
+                    replay.removeFirst();
+                }
+                replay.addLast(event);
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean send(SseEmitter emitter, Event event) {
+        try {
+            emitter.send(SseEmitter.event().name(event.name).data(event.data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter is dropped and the run carries on
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+}
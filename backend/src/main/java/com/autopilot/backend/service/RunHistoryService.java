@@ -0,0 +1,165 @@
+package com.autopilot.backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import com.autopilot.backend.model.Run;
+import com.autopilot.backend.model.RunRecord;
+import com.autopilot.backend.model.TaskResult;
+
+/**
+ * Keeps finished runs in the {@code runs} collection so they can be looked up
+ * after the in-memory run has been evicted. Outputs are gzip-compressed and
+ * only read back when a caller asks for them.
+ */
+@Service
+public class RunHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunHistoryService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int maxOutputChars;
+
+    public RunHistoryService(MongoTemplate mongoTemplate,
+            @Value("${autopilot.runs.history.enabled:true}") boolean enabled,
+            @Value("${autopilot.runs.history.retention-days:30}") long retentionDays,
+            @Value("${autopilot.runs.history.max-output-chars:1000000}") int maxOutputChars) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.retention = Duration.ofDays(retentionDays);
+        this.maxOutputChars = maxOutputChars;
+    }
+
+    /** A listener that forwards to {@code delegate} and collects task results for {@link #record}. */
+    public RunRecorder newRecorder(TaskListener delegate) {
+        return new RunRecorder(delegate, maxOutputChars);
+    }
+
+    /**
+     * Store a finished run. A failure is logged and swallowed: losing the
+     * history entry must not fail the run itself.
+     */
+    public void record(Run run, RunRecorder recorder) {
+        if (!enabled) {
+            return;
+        }
+        List<RunRecord.TaskRecord> tasks = recorder.getTasks();
+
+        RunRecord record = new RunRecord();
+        record.setId(run.getId());
+        record.setOwner(run.getOwner());
+        record.setStatus(run.getStatus());
+        record.setSubmittedAt(run.getSubmittedAt());
+        record.setStartedAt(run.getStartedAt());
+        record.setFinishedAt(run.getFinishedAt());
+        if (run.getStartedAt() != null && run.getFinishedAt() != null) {
+            record.setDurationMillis(Duration.between(run.getStartedAt(), run.getFinishedAt()).toMillis());
+        }
+        record.setTaskCount(tasks.size());
+        record.setFailedTasks((int) tasks.stream()
+                .filter(task -> task.getStatus() == TaskResult.Status.FAILED)
+                .count());
+        record.setOutput(compress(run.getOutput(), maxOutputChars));
+        record.setTasks(tasks);
+        record.setExpiresAt(Instant.now().plus(retention));
+
+        try {
+            mongoTemplate.save(record);
+        } catch (RuntimeException e) {
+            logger.error("❌ Could not store run {} in the history: {}", run.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * One page of the owner's runs, newest first. Outputs are left out of the
+     * query unless {@code includeOutput} is set.
+     */
+    public Page<RunRecord> findRuns(String owner, Run.Status status, Instant from, Instant to,
+            boolean includeOutput, int page, int size) {
+        Criteria criteria = Criteria.where("owner").is(owner);
+        if (status != null) {
+            criteria = criteria.and("status").is(status);
+        }
+        if (from != null || to != null) {
+            Criteria submittedAt = criteria.and("submittedAt");
+            if (from != null) {
+                submittedAt.gte(from);
+            }
+            if (to != null) {
+                submittedAt.lt(to);
+            }
+        }
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "submittedAt"));
+        Query query = new Query(criteria).with(pageable);
+        if (!includeOutput) {
+            excludeOutputs(query);
+        }
+        List<RunRecord> records = mongoTemplate.find(query, RunRecord.class);
+        return PageableExecutionUtils.getPage(records, pageable,
+                () -> mongoTemplate.count(Query.of(query).limit(-1).skip(-1), RunRecord.class));
+    }
+
+    public RunRecord findRun(String owner, String runId, boolean includeOutput) {
+        Query query = new Query(Criteria.where("_id").is(runId).and("owner").is(owner));
+        if (!includeOutput) {
+            excludeOutputs(query);
+        }
+        return mongoTemplate.findOne(query, RunRecord.class);
+    }
+
+    private static void excludeOutputs(Query query) {
+        query.fields().exclude("output").exclude("tasks.output");
+    }
+
+    /** Gzip the text, keeping at most {@code maxChars} characters of it. */
+    public static byte[] compress(String text, int maxChars) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() > maxChars) {
+            text = text.substring(0, maxChars) + "\n⚠️ Output truncated after " + maxChars + " characters.";
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static String decompress(byte[] compressed) {
+        if (compressed == null) {
+            return null;
+        }
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
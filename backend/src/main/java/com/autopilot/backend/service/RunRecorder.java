@@ -0,0 +1,82 @@
+package com.autopilot.backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.autopilot.backend.model.RunRecord;
+import com.autopilot.backend.model.TaskResult;
+
+/**
+ * Forwards run progress to another listener while keeping the result of every
+ * finished task, compressed, for the run history.
+ */
+public class RunRecorder implements TaskListener {
+
+    private final TaskListener delegate;
+    private final int maxOutputChars;
+    private final List<RunRecord.TaskRecord> tasks = new ArrayList<>();
+    private final List<String> phases = new ArrayList<>();
+
+    public RunRecorder(TaskListener delegate, int maxOutputChars) {
+        this.delegate = delegate;
+        this.maxOutputChars = maxOutputChars;
+    }
+
+    @Override
+    public void onPhaseStart(String phase) {
+        synchronized (tasks) {
+            phases.add(phase);
+        }
+        delegate.onPhaseStart(phase);
+    }
+
+    @Override
+    public void onTaskStart(String phase, int index, String id, String type) {
+        delegate.onTaskStart(phase, index, id, type);
+    }
+
+    @Override
+    public void onTaskOutput(String phase, int index, String line) {
+        delegate.onTaskOutput(phase, index, line);
+    }
+
+    @Override
+    public void onTaskFinish(String phase, TaskResult result) {
+        delegate.onTaskFinish(phase, result);
+
+        RunRecord.TaskRecord task = new RunRecord.TaskRecord();
+        task.setPhase(phase);
+        task.setIndex(result.getIndex());
+        task.setTaskId(result.getId());
+        task.setType(result.getType());
+        task.setStatus(result.getStatus());
+        task.setDurationMillis(result.getDurationMillis());
+        task.setOutput(RunHistoryService.compress(result.getOutput(), maxOutputChars));
+        synchronized (tasks) {
+            tasks.add(task);
+        }
+    }
+
+    @Override
+    public void onPhaseFinish(String phase) {
+        delegate.onPhaseFinish(phase);
+    }
+
+    /** Whether any finished task failed; skipped and up-to-date tasks do not count. */
+    public boolean hasFailedTasks() {
+        synchronized (tasks) {
+            return tasks.stream().anyMatch(task -> task.getStatus() == TaskResult.Status.FAILED);
+        }
+    }
+
+    /** The finished tasks in plan order, whatever order they completed in. */
+    public List<RunRecord.TaskRecord> getTasks() {
+        synchronized (tasks) {
+            List<RunRecord.TaskRecord> sorted = new ArrayList<>(tasks);
+            sorted.sort(Comparator.comparingInt((RunRecord.TaskRecord task) -> phases.indexOf(task.getPhase()))
+                    .thenComparingInt(RunRecord.TaskRecord::getIndex));
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.autopilot.backend.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.autopilot.backend.model.TaskResult;
+
+/**
+ * The full response bodies of a run's API tasks, by phase and task number.
+ * They stay readable, spill files included, until the run closes them when it
+ * is evicted; closing deletes the spill files. A discarding instance closes
+ * each body as soon as its task has finished, for callers that only want the
+ * output.
+ */
+public class RunResponseBodies implements AutoCloseable {
+
+    private final boolean keep;
+    private final Map<String, ApiResponseBody> bodies = new ConcurrentHashMap<>();
+    // Guarded by this
+    private boolean closed;
+
+    public RunResponseBodies() {
+        this(true);
+    }
+
+    private RunResponseBodies(boolean keep) {
+        this.keep = keep;
+    }
+
+    public static RunResponseBodies discarding() {
+        return new RunResponseBodies(false);
+    }
+
+    /** Take ownership of the result's body, if it has one. */
+    synchronized void add(String phase, TaskResult result) {
+        ApiResponseBody body = result.getResponseBody();
+        if (body == null) {
+            return;
+        }
+        if (!keep || closed) {
+            body.close();
+            return;
+        }
+        ApiResponseBody previous = bodies.put(key(phase, result.getIndex() + 1), body);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /** The body of task {@code task} (numbered from 1, as in run events) of the phase, or {@code null}. */
+    public ApiResponseBody get(String phase, int task) {
+        return bodies.get(key(phase, task));
+    }
+
+    private static String key(String phase, int task) {
+        return phase + "/" + task;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        bodies.values().forEach(ApiResponseBody::close);
+        bodies.clear();
+    }
+}
@@ -0,0 +1,341 @@
+package com.autopilot.backend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.autopilot.backend.loader.ConfigLoader;
+import com.autopilot.backend.loader.ExecutionPlan;
+import com.autopilot.backend.model.Run;
+import com.autopilot.backend.model.RunCheckpoint;
+
+import jakarta.annotation.PreDestroy;
+
+@Service
+public class RunService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunService.class);
+
+    private final TaskProcessorService taskProcessorService;
+    private final ExecutorService runExecutor;
+    private final ExecutorService eventExecutor;
+    private final RunHistoryService runHistoryService;
+    private final TaskFingerprintService taskFingerprintService;
+    private final RunCheckpointService runCheckpointService;
+    private final Map<String, Run> runs = new ConcurrentHashMap<>();
+    private final Map<String, RunEventStream> eventStreams = new ConcurrentHashMap<>();
+    // Full API response bodies, kept as long as the run
+    private final Map<String, RunResponseBodies> responseBodies = new ConcurrentHashMap<>();
+    // Only for runs still queued or running
+    private final Map<String, Cancellation> cancellations = new ConcurrentHashMap<>();
+
+    @Value("${autopilot.runs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${autopilot.runs.event-replay:256}")
+    private int eventReplay;
+
+    @Value("${autopilot.runs.sse-buffer:1024}")
+    private int eventBuffer;
+
+    // Kept per run for /result and the history; streamed output is never held
+    @Value("${autopilot.runs.max-output-chars:1000000}")
+    private int maxOutputChars;
+
+    public RunService(TaskProcessorService taskProcessorService,
+            @Qualifier("runExecutor") ExecutorService runExecutor,
+            @Qualifier("eventExecutor") ExecutorService eventExecutor,
+            RunHistoryService runHistoryService,
+            TaskFingerprintService taskFingerprintService,
+            RunCheckpointService runCheckpointService,
+            MeterRegistry meterRegistry) {
+        this.taskProcessorService = taskProcessorService;
+        this.runExecutor = runExecutor;
+        this.eventExecutor = eventExecutor;
+        this.runHistoryService = runHistoryService;
+        this.taskFingerprintService = taskFingerprintService;
+        this.runCheckpointService = runCheckpointService;
+        for (Run.Status status : new Run.Status[] { Run.Status.QUEUED, Run.Status.RUNNING }) {
+            Gauge.builder("autopilot.runs.in_flight", runs, r -> countRuns(status))
+                    .description("Runs submitted and not yet finished")
+                    .tag("status", status.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+    }
+
+    private long countRuns(Run.Status status) {
+        return runs.values().stream().filter(run -> run.getStatus() == status).count();
+    }
+
+    /**
+     * Compile the config and queue it on the run executor, returning immediately.
+     *
+     * @throws IllegalArgumentException when the config does not compile into a valid plan
+     * @throws java.util.concurrent.RejectedExecutionException when the run queue is full
+     */
+    public Run submit(Map<String, Object> configMap, String owner) {
+        return submit(ConfigLoader.compile(configMap), owner, null, Set.of());
+    }
+
+    /**
+     * Resume a finished or interrupted run: the same config is queued as a new
+     * run that skips every task the earlier run completed.
+     *
+     * @return the new run, or {@code null} if the owner has no checkpoint for {@code runId}
+     * @throws IllegalArgumentException when the config does not compile into a valid plan
+     * @throws IllegalStateException when the run is still going, has nothing left
+     *                               to do, or its inputs have changed since
+     */
+    public Run resume(String runId, Map<String, Object> configMap, String owner) {
+        RunCheckpoint checkpoint = runCheckpointService.find(owner, runId);
+        if (checkpoint == null) {
+            return null;
+        }
+        Run previous = runs.get(runId);
+        if (previous != null && !previous.getStatus().isFinished()) {
+            throw new IllegalStateException("Run " + runId + " is still in progress.");
+        }
+
+        ExecutionPlan plan = ConfigLoader.compile(configMap);
+        List<String> changed = RunCheckpointService.changedTasks(checkpoint, plan);
+        if (!changed.isEmpty()) {
+            throw new IllegalStateException("Inputs changed since run " + runId + " for tasks " + changed
+                    + "; submit it as a new run instead.");
+        }
+        Set<String> completed = checkpoint.getCompleted() != null ? Set.copyOf(checkpoint.getCompleted()) : Set.of();
+        if (completed.size() == checkpoint.getTasks().size()) {
+            throw new IllegalStateException("Every task of run " + runId + " already succeeded.");
+        }
+        return submit(plan, owner, runId, completed);
+    }
+
+    private Run submit(ExecutionPlan plan, String owner, String resumedFrom, Set<String> completed) {
+        Run run = new Run(UUID.randomUUID().toString(), owner, resumedFrom);
+        RunEventStream events = new RunEventStream(run.getId(), eventReplay, eventBuffer, eventExecutor);
+        RunRecorder recorder = runHistoryService.newRecorder(events);
+        Cancellation cancellation = new Cancellation();
+        RunResponseBodies bodies = new RunResponseBodies();
+        runs.put(run.getId(), run);
+        eventStreams.put(run.getId(), events);
+        responseBodies.put(run.getId(), bodies);
+        cancellations.put(run.getId(), cancellation);
+        try {
+            runExecutor.execute(() -> {
+                if (cancellation.isCancelled()) {
+                    cancellations.remove(run.getId());
+                    run.markCancelled("🛑 Run cancelled before it started.\n");
+                    events.close(run);
+                    runHistoryService.record(run, recorder);
+                    return;
+                }
+                run.markRunning();
+                try {
+                    TaskSkipPolicy checkpoints = owner != null
+                            ? runCheckpointService.begin(run, plan, completed)
+                            : TaskSkipPolicy.NONE;
+                    String output = execute(plan, recorder, owner, checkpoints, cancellation, bodies);
+                    if (cancellation.isCancelled()) {
+                        run.markCancelled(output + "🛑 Run cancelled.\n");
+                    } else {
+                        run.markFinished(!recorder.hasFailedTasks(), output);
+                    }
+                } catch (Exception e) {
+                    logger.error("Run {} failed", run.getId(), e);
+                    run.markFinished(false, "❌ Automation failed: " + e.getMessage());
+                } finally {
+                    cancellations.remove(run.getId());
+                    events.close(run);
+                }
+                runHistoryService.record(run, recorder);
+            });
+        } catch (RuntimeException e) {
+            runs.remove(run.getId());
+            eventStreams.remove(run.getId());
+            responseBodies.remove(run.getId());
+            cancellations.remove(run.getId());
+            throw e;
+        }
+        return run;
+    }
+
+    /**
+     * Cancel a queued or running run of {@code owner}. Running tasks are
+     * aborted (remote processes killed, SQL statements and HTTP exchanges
+     * cancelled) and the tasks not started yet are skipped.
+     *
+     * @return the run, or {@code null} if the owner has no such run in memory
+     * @throws IllegalStateException when the run has already finished
+     */
+    public Run cancel(String runId, String owner) {
+        Run run = runs.get(runId);
+        if (run == null || !Objects.equals(run.getOwner(), owner)) {
+            return null;
+        }
+        Cancellation cancellation = cancellations.get(runId);
+        if (cancellation == null || run.getStatus().isFinished()) {
+            throw new IllegalStateException("Run " + runId + " has already finished.");
+        }
+        if (cancellation.cancel(Cancellation.Reason.CANCELLED)) {
+            logger.info("🛑 Run {} cancelled by {}", runId, owner);
+        }
+        return run;
+    }
+
+    /** The run, or {@code null} if {@code owner} has no such run in memory. */
+    public Run getRun(String runId, String owner) {
+        Run run = runs.get(runId);
+        return run != null && Objects.equals(run.getOwner(), owner) ? run : null;
+    }
+
+    /** The run's events, or {@code null} if {@code owner} has no such run in memory. */
+    public RunEventStream getEventStream(String runId, String owner) {
+        return getRun(runId, owner) != null ? eventStreams.get(runId) : null;
+    }
+
+    /**
+     * The full response body of API task {@code task} (numbered from 1) of the
+     * phase, or {@code null} if {@code owner} has no such run in memory or the
+     * task has no body.
+     */
+    public ApiResponseBody getResponseBody(String runId, String owner, String phase, int task) {
+        RunResponseBodies bodies = getRun(runId, owner) != null ? responseBodies.get(runId) : null;
+        return bodies != null ? bodies.get(phase, task) : null;
+    }
+
+    /**
+     * Run the "basic" phase, or the "pre" then "post" phases, on the calling thread.
+     */
+    public String execute(Map<String, Object> configMap) throws Exception {
+        return execute(configMap, null);
+    }
+
+    /**
+     * Run the config synchronously for {@code owner}, storing it in the owner's
+     * history like a submitted run. Runs without an owner are not stored, as no
+     * one could look them up.
+     */
+    public String execute(Map<String, Object> configMap, String owner) throws Exception {
+        ExecutionPlan plan = ConfigLoader.compile(configMap);
+        if (owner == null) {
+            return execute(plan, TaskListener.NONE, null);
+        }
+        Run run = new Run(UUID.randomUUID().toString(), owner);
+        RunRecorder recorder = runHistoryService.newRecorder(TaskListener.NONE);
+        run.markRunning();
+        try {
+            String output = execute(plan, recorder, owner);
+            run.markFinished(!recorder.hasFailedTasks(), output);
+            return output;
+        } catch (Exception e) {
+            run.markFinished(false, "❌ Automation failed: " + e.getMessage());
+            throw e;
+        } finally {
+            runHistoryService.record(run, recorder);
+        }
+    }
+
+    public String execute(ExecutionPlan plan, TaskListener listener) throws Exception {
+        return execute(plan, listener, null);
+    }
+
+    /**
+     * Run the plan for {@code owner}. Incremental plans skip the tasks that
+     * already succeeded for the same owner with the same inputs; without an
+     * owner every task runs.
+     */
+    public String execute(ExecutionPlan plan, TaskListener listener, String owner) throws Exception {
+        return execute(plan, listener, owner, TaskSkipPolicy.NONE, new Cancellation(),
+                RunResponseBodies.discarding());
+    }
+
+    private String execute(ExecutionPlan plan, TaskListener listener, String owner, TaskSkipPolicy checkpoints,
+            Cancellation cancellation, RunResponseBodies bodies) throws Exception {
+        TaskSkipPolicy skipPolicy = plan.isIncremental() && owner != null
+                ? TaskSkipPolicy.anyOf(checkpoints, taskFingerprintService.begin(owner, plan))
+                : checkpoints;
+        RunVariables variables = new RunVariables();
+        StringBuilder output = new StringBuilder();
+
+        if (plan.hasPhase("basic")) {
+            output.append("🚀 Running Basic Tasks...\n");
+            listener.onPhaseStart("basic");
+            String basicOutput = taskProcessorService.processTasks(plan, "basic", listener, skipPolicy,
+                    cancellation, variables, bodies);
+            listener.onPhaseFinish("basic");
+            append(output, basicOutput);
+            output.append("✅ Basic tasks completed.\n");
+        } else {
+            output.append("🚀 Running Pre Tasks...\n");
+            listener.onPhaseStart("pre");
+            String preOutput = taskProcessorService.processTasks(plan, "pre", listener, skipPolicy,
+                    cancellation, variables, bodies);
+            listener.onPhaseFinish("pre");
+            append(output, preOutput);
+            output.append("✅ Pre tasks completed.\n\n");
+
+            output.append("🚀 Running Post Tasks...\n");
+            listener.onPhaseStart("post");
+            String postOutput = taskProcessorService.processTasks(plan, "post", listener, skipPolicy,
+                    cancellation, variables, bodies);
+            listener.onPhaseFinish("post");
+            append(output, postOutput);
+            output.append("✅ Post tasks completed.\n");
+        }
+
+        return output.toString();
+    }
+
+    /** Append a phase's output, keeping the run's output within {@code maxOutputChars}. */
+    private void append(StringBuilder output, String phaseOutput) {
+        int room = maxOutputChars - output.length();
+        if (phaseOutput.length() <= room) {
+            output.append(phaseOutput);
+        } else if (room > 0) {
+            output.append(phaseOutput, 0, room)
+                    .append("\n⚠️ Output truncated after ").append(maxOutputChars).append(" characters.\n");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${autopilot.runs.cleanup-interval-ms:60000}")
+    public void evictFinishedRuns() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        runs.values().removeIf(run -> {
+            boolean expired = run.getStatus().isFinished() && run.getFinishedAt().isBefore(cutoff);
+            if (expired) {
+                eventStreams.remove(run.getId());
+                closeResponseBodies(run.getId());
+            }
+            return expired;
+        });
+    }
+
+    private void closeResponseBodies(String runId) {
+        RunResponseBodies bodies = responseBodies.remove(runId);
+        if (bodies != null) {
+            bodies.close();
+        }
+    }
+
+    /** Delete the spill files of the runs still in memory. */
+    @PreDestroy
+    public void closeAllResponseBodies() {
+        responseBodies.keySet().forEach(this::closeResponseBodies);
+    }
+}
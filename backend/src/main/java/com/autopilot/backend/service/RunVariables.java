@@ -0,0 +1,127 @@
+package com.autopilot.backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.autopilot.backend.config.APIConfig;
+import com.autopilot.backend.loader.PlannedTask;
+
+/**
+ * Variables shared by the tasks of one run, across phases. API tasks set them
+ * with {@code "extract": {"name": "/json/pointer"}} and later API tasks use
+ * them as {@code ${name}} in their url, header values and body. Only the
+ * variables of the tasks a task depends on are sure to be set when it runs;
+ * references to variables that are not set are left as they are.
+ */
+public class RunVariables {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunVariables.class);
+
+    private static final Pattern REFERENCE = Pattern.compile("\\$\\{([A-Za-z_][A-Za-z0-9_.-]*)}");
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    public void putAll(Map<String, String> extracted) {
+        values.putAll(extracted);
+    }
+
+    public String get(String name) {
+        return values.get(name);
+    }
+
+    /**
+     * Whether the task's behaviour depends on this run: it sets variables, or
+     * uses them. Such tasks are never skipped as up to date, since variables
+     * are not persisted.
+     */
+    public static boolean isRunDependent(PlannedTask task) {
+        if (!(task.getConfig() instanceof APIConfig)) {
+            return false;
+        }
+        APIConfig config = (APIConfig) task.getConfig();
+        if (config.getExtract() != null && !config.getExtract().isEmpty()) {
+            return true;
+        }
+        return references(config.getUrl()) || references(config.getHeaders()) || references(config.getBody());
+    }
+
+    private static boolean references(Object value) {
+        if (value instanceof String) {
+            return REFERENCE.matcher((String) value).find();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).values().stream().anyMatch(RunVariables::references);
+        }
+        if (value instanceof List) {
+            return ((List<?>) value).stream().anyMatch(RunVariables::references);
+        }
+        return false;
+    }
+
+    /**
+     * A copy of the config with variables substituted. Always a copy, even
+     * without references: the executor fills in the response on the config it
+     * is given, and the plan must not change while it runs.
+     */
+    public APIConfig resolve(APIConfig template) {
+        APIConfig resolved = new APIConfig();
+        resolved.setUrl(substitute(template.getUrl()));
+        resolved.setMethod(template.getMethod());
+        if (template.getHeaders() != null) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            template.getHeaders().forEach((name, value) -> headers.put(name, substitute(value)));
+            resolved.setHeaders(headers);
+        }
+        resolved.setBody(substituteAll(template.getBody()));
+        resolved.setTimeoutSeconds(template.getTimeoutSeconds());
+        resolved.setAttemptTimeoutSeconds(template.getAttemptTimeoutSeconds());
+        resolved.setConnectTimeoutSeconds(template.getConnectTimeoutSeconds());
+        resolved.setMaxAttempts(template.getMaxAttempts());
+        resolved.setExtract(template.getExtract());
+        return resolved;
+    }
+
+    /** Values are inserted as they are, so a string body must quote them itself where JSON needs it. */
+    String substitute(String text) {
+        if (text == null) {
+            return null;
+        }
+        Matcher matcher = REFERENCE.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String value = values.get(matcher.group(1));
+            if (value == null) {
+                logger.warn("Variable {} is not set, leaving {} as is", matcher.group(1), matcher.group());
+                value = matcher.group();
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private Object substituteAll(Object value) {
+        if (value instanceof String) {
+            return substitute((String) value);
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((key, item) -> copy.put(key, substituteAll(item)));
+            return copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            ((List<?>) value).forEach(item -> copy.add(substituteAll(item)));
+            return copy;
+        }
+        return value;
+    }
+}
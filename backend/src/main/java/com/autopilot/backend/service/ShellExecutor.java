@@ -1,71 +1,151 @@
 package com.autopilot.backend.service;
 
 import com.autopilot.backend.config.ServerConfig;
+import org.apache.sshd.client.channel.ChannelExec;
+import org.apache.sshd.client.channel.ClientChannelEvent;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.apache.sshd.sftp.client.SftpClientFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Service
 public class ShellExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(ShellExecutor.class);
 
-    public void uploadScriptToRemote(String localScriptPath, ServerConfig config) throws IOException, InterruptedException {
-        logger.info("Uploading script to remote server...");
-        System.out.println("localScriptPath: " + localScriptPath);
-System.out.println("privateKeyPem: " + config.getPrivateKeyPemFilepath());
-System.out.println("username: " + config.getServerUsername());
-System.out.println("host: " + config.getServerIp());
+    private static final String PID_MARKER = "__autopilot_pid=";
+    private static final int KILL_GRACE_SECONDS = 5;
 
+    private final SshSessionPool sessionPool;
+    private final KeyMaterialCache keyCache;
+    private final long channelOpenTimeoutMillis;
 
-        ProcessBuilder scpBuilder = new ProcessBuilder(
-                "scp",
-                "-i", config.getPrivateKeyPemFilepath(),
-                "-o", "StrictHostKeyChecking=no",
-                localScriptPath,
-                config.getServerUsername() + "@" + config.getServerIp() + ":~/uploaded_script.sh"
-        );
+    // Bounds the wait for the exit status when the task sets no timeoutSeconds
+    @Value("${autopilot.tasks.timeout.shell-seconds:3600}")
+    private long defaultTimeoutSeconds;
 
-        scpBuilder.inheritIO();
-        Process scpProcess = scpBuilder.start();
-        int scpExit = scpProcess.waitFor();
+    public ShellExecutor(SshSessionPool sessionPool, KeyMaterialCache keyCache,
+            @Value("${autopilot.ssh.connect-timeout-ms:15000}") long channelOpenTimeoutMillis) {
+        this.sessionPool = sessionPool;
+        this.keyCache = keyCache;
+        this.channelOpenTimeoutMillis = channelOpenTimeoutMillis;
+    }
+
+    /**
+     * Upload the script over SFTP on the host's pooled session. Every upload
+     * gets its own remote file name, so tasks sharing a host never overwrite
+     * each other's script.
+     *
+     * @return the remote path, relative to the login directory
+     */
+    public String uploadScriptToRemote(String localScriptPath, ServerConfig config) throws IOException {
+        logger.info("Uploading script to {}...", config.getServerIp());
+        String remotePath = "uploaded_script_" + UUID.randomUUID() + ".sh";
 
-        if (scpExit != 0) {
-            throw new IOException("❌ SCP upload failed with exit code " + scpExit);
+        try (SshSessionPool.Lease lease = sessionPool.acquire(config);
+             SftpClient sftp = SftpClientFactory.instance().createSftpClient(lease.getSession());
+             OutputStream out = sftp.write(remotePath)) {
+            Files.copy(new File(localScriptPath).toPath(), out);
+        } catch (IOException e) {
+            sessionPool.invalidate(config);
+            throw new IOException("❌ SFTP upload failed: " + e.getMessage(), e);
         }
 
         logger.info("✅ Script uploaded successfully.");
+        return remotePath;
     }
 
     public String execute(String remoteScriptPath, ServerConfig config) throws IOException, InterruptedException {
-        logger.info("Executing script on remote server...");
-        System.out.println("File:_----"+ remoteScriptPath);
-        System.out.println(config.getPrivateKeyPemFilepath());
-
-        ProcessBuilder sshBuilder = new ProcessBuilder(
-                "ssh",
-                "-i", config.getPrivateKeyPemFilepath(),
-                "-o", "StrictHostKeyChecking=no",
-                config.getServerUsername() + "@" + config.getServerIp(),
-                "sh " + remoteScriptPath
-        );
-
-        sshBuilder.inheritIO();
-        Process sshProcess = sshBuilder.start();
-        int sshExit = sshProcess.waitFor();
-
-        if (sshExit != 0) {
-            String err = "❌ Shell script execution failed with exit code: " + sshExit;
+        return execute(remoteScriptPath, config, line -> {
+        });
+    }
+
+    public String execute(String remoteScriptPath, ServerConfig config, Consumer<String> outputSink)
+            throws IOException, InterruptedException {
+        return exec("sh " + remoteScriptPath, config, outputSink);
+    }
+
+    private String exec(String command, ServerConfig config, Consumer<String> outputSink) throws IOException {
+        return exec(command, config, outputSink, new Cancellation(), "");
+    }
+
+    /**
+     * Run {@code command} on the host. The remote shell first reports its PID,
+     * which is also its process group since sshd starts every command in a new
+     * session; cancelling kills that group, then closes the channel. The kill
+     * runs on its own channel, which this thread waits for and closes once the
+     * command's channel is gone.
+     *
+     * @param cleanup shell commands run after the kill, e.g. to remove the uploaded script
+     */
+    private String exec(String command, ServerConfig config, Consumer<String> outputSink,
+            Cancellation cancellation, String cleanup) throws IOException {
+        logger.info("Executing script on {}...", config.getServerIp());
+
+        Integer exitStatus;
+        AtomicReference<ChannelExec> killChannel = new AtomicReference<>();
+        try (SshSessionPool.Lease lease = sessionPool.acquire(config);
+             ChannelExec channel = lease.getSession().createExecChannel("echo " + PID_MARKER + "$$; " + command)) {
+            // Forward the remote output line by line, stderr included
+            channel.setRedirectErrorStream(true);
+            channel.open().verify(channelOpenTimeoutMillis);
+            AtomicReference<String> remotePid = new AtomicReference<>();
+            try (Cancellation.Registration ignored = cancellation
+                    .onCancel(() -> abort(lease.getSession(), channel, remotePid.get(), cleanup, killChannel));
+                 BufferedReader reader = new BufferedReader(
+                         new InputStreamReader(channel.getInvertedOut(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (remotePid.get() == null && line.startsWith(PID_MARKER)) {
+                        remotePid.set(line.substring(PID_MARKER.length()).trim());
+                        if (cancellation.isCancelled()) {
+                            abort(lease.getSession(), channel, remotePid.get(), cleanup, killChannel);
+                        }
+                        continue;
+                    }
+                    logger.info(line);
+                    outputSink.accept(line);
+                }
+            }
+            Set<ClientChannelEvent> events = channel.waitFor(
+                    EnumSet.of(ClientChannelEvent.CLOSED, ClientChannelEvent.EXIT_STATUS), exitWaitMillis(config));
+            if (events.contains(ClientChannelEvent.TIMEOUT)) {
+                throw new IOException("no exit status from " + config.getServerIp() + " after the task timeout");
+            }
+            exitStatus = channel.getExitStatus();
+        } catch (IOException e) {
+            if (cancellation.isCancelled()) {
+                throw new IOException("❌ Shell script aborted on " + config.getServerIp(), e);
+            }
+            sessionPool.invalidate(config);
+            throw new IOException("❌ SSH execution failed: " + e.getMessage(), e);
+        } finally {
+            closeKillChannel(killChannel.get());
+        }
+
+        if (cancellation.isCancelled()) {
+            throw new IOException("❌ Shell script aborted on " + config.getServerIp());
+        }
+
+        if (exitStatus == null || exitStatus != 0) {
+            String err = "❌ Shell script execution failed with exit code: " + exitStatus;
             logger.warn(err);
             throw new IOException(err);
         }
@@ -76,59 +156,101 @@ System.out.println("host: " + config.getServerIp());
     }
 
     public String runShellFromConfig(ServerConfig config) throws IOException, InterruptedException {
-    File localScript = new File(config.getShellScriptFilepath());
-    File localPem = new File(config.getPrivateKeyPemFilepath());
-
-    if (!localScript.exists()) {
-        throw new IOException("❌ Script file not found: " + localScript.getAbsolutePath());
+        return runShellFromConfig(config, line -> {
+        });
     }
-    if (!localPem.exists() || localPem.length() == 0) {
-        throw new IOException("❌ PEM file not found or empty: " + localPem.getAbsolutePath());
+
+    public String runShellFromConfig(ServerConfig config, Consumer<String> outputSink)
+            throws IOException, InterruptedException {
+        return runShellFromConfig(config, outputSink, new Cancellation());
     }
 
-    // Set permissions on PEM file
-    Process chmod = Runtime.getRuntime().exec(new String[] { "chmod", "600", localPem.getAbsolutePath() });
-    int exitCode = chmod.waitFor();
-    if (exitCode != 0) {
-        throw new IOException("❌ Failed to set permissions on PEM file");
+    public String runShellFromConfig(ServerConfig config, Consumer<String> outputSink, Cancellation cancellation)
+            throws IOException, InterruptedException {
+        prepareKey(config);
+        return runOnHost(config, outputSink, cancellation);
     }
 
-                // Remove passphrase from PEM using the provided password
-            try {
-                ProcessBuilder pb = new ProcessBuilder(
-                        "ssh-keygen",
-                        "-p",
-                        "-P", config.getPemFilePassword(), // old passphrase
-                        "-N", "", // new passphrase (none)
-                        "-f", localPem.getAbsolutePath());
-                pb.redirectErrorStream(true);
-                Process process = pb.start();
-
-                // Read output (optional but helpful for debugging)
-                BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-                String line;
-                StringBuilder output = new StringBuilder();
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
+    /**
+     * Check the script and PEM files and make sure the key decrypts with the
+     * configured password. The decrypted key is cached (see {@link KeyMaterialCache}),
+     * so connecting afterwards does not decrypt it again.
+     */
+    public void prepareKey(ServerConfig config) throws IOException, InterruptedException {
+        File localScript = new File(config.getShellScriptFilepath());
+        File localPem = new File(config.getPrivateKeyPemFilepath());
 
-                int keygenExit = process.waitFor();
-                if (keygenExit != 0) {
-                    throw new IOException(
-                            "❌ Failed to remove passphrase from PEM file using ssh-keygen.\nOutput:\n" + output);
-                }
-                System.out.println("✅ Passphrase removed from PEM successfully");
+        if (!localScript.exists()) {
+            throw new IOException("❌ Script file not found: " + localScript.getAbsolutePath());
+        }
+        if (!localPem.exists() || localPem.length() == 0) {
+            throw new IOException("❌ PEM file not found or empty: " + localPem.getAbsolutePath());
+        }
 
-            } catch (Exception ex) {
-                throw new IOException("❌ Exception while removing passphrase: " + ex.getMessage(), ex);
-            }
+        keyCache.load(config);
+    }
 
-    // Upload the script to remote
-    uploadScriptToRemote(localScript.getAbsolutePath(), config);
+    /**
+     * Upload the task's script to {@code config.getServerIp()} and run it there.
+     * Both steps are channels on the same pooled session; the script removes
+     * itself once it has run.
+     */
+    public String runOnHost(ServerConfig config, Consumer<String> outputSink)
+            throws IOException, InterruptedException {
+        return runOnHost(config, outputSink, new Cancellation());
+    }
 
-    // Run the script remotely
-    return execute("~/uploaded_script.sh", config);
-}
+    public String runOnHost(ServerConfig config, Consumer<String> outputSink, Cancellation cancellation)
+            throws IOException, InterruptedException {
+        File localScript = new File(config.getShellScriptFilepath());
+
+        String remotePath = uploadScriptToRemote(localScript.getAbsolutePath(), config);
+        return exec("sh " + remotePath + "; status=$?; rm -f " + remotePath + "; exit $status", config, outputSink,
+                cancellation, "rm -f " + remotePath);
+    }
 
+    private long exitWaitMillis(ServerConfig config) {
+        long seconds = config.getTimeoutSeconds() != null ? config.getTimeoutSeconds() : defaultTimeoutSeconds;
+        return seconds > 0 ? TimeUnit.SECONDS.toMillis(seconds) : channelOpenTimeoutMillis;
+    }
 
+    /**
+     * Kill the remote process group (TERM, then KILL after a grace period) on a
+     * separate channel of the same session and close the command's channel.
+     * Nothing here waits, so the cancelling thread is released immediately; the
+     * kill channel is handed to the executing thread through {@code killChannel}.
+     * Cancelled before the PID line arrived, only the channel can be closed.
+     */
+    private void abort(ClientSession session, ChannelExec channel, String remotePid, String cleanup,
+            AtomicReference<ChannelExec> killChannel) {
+        if (remotePid != null && remotePid.chars().allMatch(Character::isDigit) && !remotePid.isEmpty()
+                && killChannel.get() == null) {
+            String command = "kill -TERM -- -" + remotePid + " 2>/dev/null || kill -TERM " + remotePid + " 2>/dev/null; "
+                    + "sleep " + KILL_GRACE_SECONDS + "; kill -KILL -- -" + remotePid + " 2>/dev/null; " + cleanup;
+            try {
+                ChannelExec kill = session.createExecChannel(command);
+                if (killChannel.compareAndSet(null, kill)) {
+                    kill.open();
+                } else {
+                    kill.close(true);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not kill remote process {} on {}: {}", remotePid, session, e.getMessage());
+            }
+        }
+        channel.close(true);
+    }
+
+    /** Let the kill command finish its grace period, then close its channel whatever happened. */
+    private void closeKillChannel(ChannelExec killChannel) {
+        if (killChannel == null) {
+            return;
+        }
+        try {
+            killChannel.waitFor(EnumSet.of(ClientChannelEvent.CLOSED, ClientChannelEvent.EXIT_STATUS),
+                    TimeUnit.SECONDS.toMillis(KILL_GRACE_SECONDS) + channelOpenTimeoutMillis);
+        } finally {
+            killChannel.close(false);
+        }
+    }
 }
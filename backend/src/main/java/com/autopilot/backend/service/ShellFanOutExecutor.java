@@ -0,0 +1,281 @@
+package com.autopilot.backend.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.autopilot.backend.config.ServerConfig;
+import com.autopilot.backend.model.HostResult;
+import com.autopilot.backend.model.TaskResult;
+
+/**
+ * Runs one shell task across many hosts.
+ * <p>
+ * Hosts come from the task's {@code hosts} list and/or an inventory file (one
+ * host per line, {@code #} starts a comment). They are rolled out in waves: an
+ * optional canary wave of {@code canaryHosts}, then waves of {@code waveSize}
+ * (all remaining hosts when unset). At most {@code maxParallelHosts} hosts run at
+ * once. Once more than {@code maxFailures} hosts have failed no new host is
+ * started and the rest are reported as skipped.
+ */
+@Service
+public class ShellFanOutExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShellFanOutExecutor.class);
+
+    private final ShellExecutor shellExecutor;
+    private final ExecutorService hostExecutor;
+    private final int defaultMaxParallelHosts;
+
+    public ShellFanOutExecutor(ShellExecutor shellExecutor,
+            @Qualifier("hostExecutor") ExecutorService hostExecutor,
+            @Value("${autopilot.shell.max-parallel-hosts:10}") int defaultMaxParallelHosts) {
+        this.shellExecutor = shellExecutor;
+        this.hostExecutor = hostExecutor;
+        this.defaultMaxParallelHosts = defaultMaxParallelHosts;
+    }
+
+    /** Whether the task lists hosts or an inventory instead of a single serverIp. */
+    public static boolean isFanOut(ServerConfig config) {
+        return (config.getHosts() != null && !config.getHosts().isEmpty()) || config.getInventoryFilepath() != null;
+    }
+
+    public static List<String> resolveHosts(ServerConfig config) throws IOException {
+        Set<String> hosts = new LinkedHashSet<>();
+        if (config.getHosts() != null) {
+            for (String host : config.getHosts()) {
+                if (host != null && !host.isBlank()) {
+                    hosts.add(host.trim());
+                }
+            }
+        }
+        if (config.getInventoryFilepath() != null) {
+            Path inventory = Path.of(config.getInventoryFilepath());
+            if (!Files.isRegularFile(inventory)) {
+                throw new IOException("❌ Inventory file not found: " + inventory.toAbsolutePath());
+            }
+            for (String line : Files.readAllLines(inventory, StandardCharsets.UTF_8)) {
+                int comment = line.indexOf('#');
+                String host = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                if (!host.isEmpty()) {
+                    hosts.add(host);
+                }
+            }
+        }
+        if (hosts.isEmpty() && config.getServerIp() != null) {
+            hosts.add(config.getServerIp());
+        }
+        if (hosts.isEmpty()) {
+            throw new IOException("❌ No hosts found for shell task");
+        }
+        return new ArrayList<>(hosts);
+    }
+
+    static List<List<String>> waves(List<String> hosts, Integer canaryHosts, Integer waveSize) {
+        List<List<String>> waves = new ArrayList<>();
+        int next = 0;
+        if (canaryHosts != null && canaryHosts > 0) {
+            next = Math.min(canaryHosts, hosts.size());
+            waves.add(hosts.subList(0, next));
+        }
+        int size = waveSize != null && waveSize > 0 ? waveSize : Math.max(hosts.size() - next, 1);
+        while (next < hosts.size()) {
+            int end = Math.min(next + size, hosts.size());
+            waves.add(hosts.subList(next, end));
+            next = end;
+        }
+        return waves;
+    }
+
+    public Report run(ServerConfig config, Consumer<String> outputSink) throws IOException, InterruptedException {
+        return run(config, outputSink, new Cancellation());
+    }
+
+    /**
+     * Same as {@link #run(ServerConfig, Consumer)}; cancelling aborts the hosts
+     * in progress and skips the ones not started yet.
+     */
+    public Report run(ServerConfig config, Consumer<String> outputSink, Cancellation cancellation)
+            throws IOException, InterruptedException {
+        List<String> hosts = resolveHosts(config);
+        int maxParallel = Math.max(1,
+                config.getMaxParallelHosts() != null ? config.getMaxParallelHosts() : defaultMaxParallelHosts);
+        int maxFailures = Math.max(0, config.getMaxFailures() != null ? config.getMaxFailures() : 0);
+        List<List<String>> waves = waves(hosts, config.getCanaryHosts(), config.getWaveSize());
+
+        shellExecutor.prepareKey(config);
+
+        Report report = new Report(hosts, waves.size(), maxParallel, maxFailures);
+        AtomicInteger failures = new AtomicInteger();
+        Semaphore permits = new Semaphore(maxParallel);
+        List<Future<?>> running = new ArrayList<>();
+
+        try {
+            for (int w = 0; w < waves.size(); w++) {
+                List<String> wave = waves.get(w);
+                if (failures.get() > maxFailures || cancellation.isCancelled()) {
+                    wave.forEach(host -> report.skip(host, cancellation));
+                    continue;
+                }
+                outputSink.accept("🚀 Wave " + (w + 1) + "/" + waves.size() + ": " + wave.size() + " host(s)");
+
+                running.clear();
+                for (String host : wave) {
+                    permits.acquire();
+                    if (failures.get() > maxFailures || cancellation.isCancelled()) {
+                        permits.release();
+                        report.skip(host, cancellation);
+                        continue;
+                    }
+                    running.add(hostExecutor.submit(() -> {
+                        try {
+                            HostResult result = runOnHost(config, host, outputSink, cancellation);
+                            if (result.getStatus() == TaskResult.Status.FAILED) {
+                                failures.incrementAndGet();
+                            }
+                            report.add(result);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+                // Waves are barriers: the next one only starts once this one has settled
+                for (Future<?> future : running) {
+                    future.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            running.forEach(future -> future.cancel(true));
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IOException("❌ Shell fan-out failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return report;
+    }
+
+    private HostResult runOnHost(ServerConfig config, String host, Consumer<String> outputSink,
+            Cancellation cancellation) {
+        long start = System.currentTimeMillis();
+        try {
+            String result = shellExecutor.runOnHost(forHost(config, host),
+                    line -> outputSink.accept("[" + host + "] " + line), cancellation);
+            return new HostResult(host, TaskResult.Status.SUCCEEDED, result, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            logger.warn("Shell task failed on {}: {}", host, e.getMessage());
+            return new HostResult(host, TaskResult.Status.FAILED, e.getMessage(), System.currentTimeMillis() - start);
+        }
+    }
+
+    private static ServerConfig forHost(ServerConfig config, String host) {
+        ServerConfig hostConfig = new ServerConfig();
+        hostConfig.setServerIp(host);
+        hostConfig.setServerPort(config.getServerPort());
+        hostConfig.setServerUsername(config.getServerUsername());
+        hostConfig.setShellScriptFilepath(config.getShellScriptFilepath());
+        hostConfig.setPrivateKeyPemFilepath(config.getPrivateKeyPemFilepath());
+        hostConfig.setPemFilePassword(config.getPemFilePassword());
+        return hostConfig;
+    }
+
+    /** Per-host outcome of a fan-out, reported in inventory order. */
+    public static class Report {
+
+        private final List<String> hosts;
+        private final int waves;
+        private final int maxParallel;
+        private final int maxFailures;
+        private final Map<String, HostResult> results = new ConcurrentHashMap<>();
+
+        Report(List<String> hosts, int waves, int maxParallel, int maxFailures) {
+            this.hosts = hosts;
+            this.waves = waves;
+            this.maxParallel = maxParallel;
+            this.maxFailures = maxFailures;
+        }
+
+        void add(HostResult result) {
+            results.put(result.getHost(), result);
+        }
+
+        void skip(String host, Cancellation cancellation) {
+            add(new HostResult(host, TaskResult.Status.SKIPPED,
+                    cancellation.isCancelled() ? "task aborted" : "failure threshold reached", 0));
+        }
+
+        public List<HostResult> getResults() {
+            List<HostResult> ordered = new ArrayList<>();
+            for (String host : hosts) {
+                HostResult result = results.get(host);
+                if (result != null) {
+                    ordered.add(result);
+                }
+            }
+            return ordered;
+        }
+
+        public long count(TaskResult.Status status) {
+            return results.values().stream().filter(r -> r.getStatus() == status).count();
+        }
+
+        /** Failures within the threshold still count as success, as long as every host was tried. */
+        public boolean isSucceeded() {
+            return count(TaskResult.Status.FAILED) <= maxFailures && count(TaskResult.Status.SKIPPED) == 0;
+        }
+
+        public String format() {
+            StringBuilder output = new StringBuilder();
+            output.append("🚀 Shell fan-out across ").append(hosts.size()).append(" hosts in ").append(waves)
+                    .append(" wave(s), max ").append(maxParallel).append(" in parallel\n");
+            for (HostResult result : getResults()) {
+                String message = result.getMessage() != null ? result.getMessage().replaceFirst("^[✅❌]\\s*", "") : "";
+                switch (result.getStatus()) {
+                    case SUCCEEDED:
+                        output.append("✅ ");
+                        break;
+                    case FAILED:
+                        output.append("❌ ");
+                        break;
+                    default:
+                        output.append("⏭️ ");
+                        break;
+                }
+                output.append(result.getHost()).append(": ").append(message);
+                if (result.getStatus() != TaskResult.Status.SKIPPED) {
+                    output.append(" (").append(result.getDurationMillis()).append(" ms)");
+                }
+                output.append("\n");
+            }
+            long failed = count(TaskResult.Status.FAILED);
+            output.append("Hosts: ").append(count(TaskResult.Status.SUCCEEDED)).append(" succeeded, ")
+                    .append(failed).append(" failed, ")
+                    .append(count(TaskResult.Status.SKIPPED)).append(" skipped");
+            if (failed > maxFailures) {
+                output.append("\n⚠️ Rollout stopped: ").append(failed).append(" failure(s), threshold is ")
+                        .append(maxFailures);
+            }
+            return output.toString();
+        }
+    }
+}
@@ -2,23 +2,66 @@ package com.autopilot.backend.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.autopilot.backend.config.DBConfig;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-
-import org.apache.ibatis.jdbc.ScriptRunner;
+import java.sql.Statement;
+import java.util.Locale;
 
 @Service
 public class SqlExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(SqlExecutor.class);
 
+    private final DataSourceRegistry dataSourceRegistry;
+    private final int defaultBatchSize;
+    private final int defaultCommitInterval;
+
+    // Stop at the first failing statement unless the task sets continueOnError
+    @Value("${autopilot.sql.continue-on-error:false}")
+    private boolean defaultContinueOnError;
+
+    public SqlExecutor(DataSourceRegistry dataSourceRegistry,
+            @Value("${autopilot.sql.batch-size:500}") int defaultBatchSize,
+            @Value("${autopilot.sql.commit-interval:5000}") int defaultCommitInterval) {
+        this.dataSourceRegistry = dataSourceRegistry;
+        this.defaultBatchSize = defaultBatchSize;
+        this.defaultCommitInterval = defaultCommitInterval;
+    }
+
+    /**
+     * Run a SQL script against the task's database.
+     * <p>
+     * The script is read and split incrementally. Consecutive DML statements are
+     * sent with JDBC batching; any other statement flushes the pending batch and
+     * runs on its own. Work is committed every {@code commitInterval} statements
+     * and at the end; on the first error the uncommitted work is rolled back,
+     * so a failed script may leave the intervals before it committed.
+     * <p>
+     * With {@code continueOnError} the script runs like it used to under
+     * MyBatis' ScriptRunner: statements run one by one without batching, a
+     * failing statement is logged and skipped, and the task succeeds with the
+     * failures counted in its summary.
+     *
+     * @return a summary with statement count, rows affected and throughput
+     */
     public String execute(String filePath, DBConfig config) throws IOException, SQLException {
+        return execute(filePath, config, new Cancellation());
+    }
+
+    /**
+     * Same as {@link #execute(String, DBConfig)}; cancelling aborts the running
+     * statement with {@link Statement#cancel()} and rolls back uncommitted work.
+     */
+    public String execute(String filePath, DBConfig config, Cancellation cancellation)
+            throws IOException, SQLException {
         File sqlFile = new File(filePath);
         if (!sqlFile.exists() || sqlFile.isDirectory()) {
             String msg = "❌ SQL file not found at path: " + filePath;
@@ -26,46 +69,42 @@ public class SqlExecutor {
             throw new IOException(msg);
         }
 
-        String url = "jdbc:oracle:thin:@" + config.getDbUrl();
-
-        try (Connection conn = DriverManager.getConnection(url, config.getDbUsername(), config.getDbPassword());
-             Reader reader = new BufferedReader(new FileReader(sqlFile))) {
-
-            ScriptRunner runner = new ScriptRunner(conn);
-
-            PrintWriter logWriter = new PrintWriter(new Writer() {
-                @Override
-                public void write(char[] cbuf, int off, int len) {
-                    logger.info(new String(cbuf, off, len));
-                }
-
-                @Override
-                public void flush() {}
-                @Override
-                public void close() {}
-            });
+        int batchSize = config.getBatchSize() != null ? config.getBatchSize() : defaultBatchSize;
+        int commitInterval = config.getCommitInterval() != null ? config.getCommitInterval() : defaultCommitInterval;
+        boolean continueOnError = config.getContinueOnError() != null
+                ? config.getContinueOnError()
+                : defaultContinueOnError;
 
-            runner.setLogWriter(logWriter);
-            runner.setErrorLogWriter(logWriter);
+        try (Connection conn = dataSourceRegistry.getConnection(config);
+             BufferedReader reader = Files.newBufferedReader(sqlFile.toPath(), StandardCharsets.UTF_8)) {
 
-            runner.runScript(reader);
+            long start = System.nanoTime();
+            ScriptStats stats = runScript(conn, new SqlStatementSplitter(reader),
+                    Math.max(1, batchSize), Math.max(1, commitInterval), continueOnError, cancellation);
+            double seconds = Math.max((System.nanoTime() - start) / 1_000_000_000.0, 0.001);
 
-            String success = "✅ SQL script executed successfully.";
-            logger.info(success);
-            return success;
+            String summary = String.format(Locale.ROOT, "%d statements, %d rows affected, %.1f statements/sec",
+                    stats.statements, stats.rowsAffected, stats.statements / seconds);
+            if (stats.failed > 0) {
+                summary += String.format(Locale.ROOT, ", ⚠️ %d statements failed and were skipped", stats.failed);
+            }
+            logger.info("✅ SQL script executed successfully: {}", summary);
+            return summary;
 
         } catch (SQLException e) {
+            // The pool wraps driver failures, so look for the vendor error code down the cause chain
+            SQLException vendor = vendorException(e);
             String message;
-            if (e.getErrorCode() == 1017) {
+            if (vendor.getErrorCode() == 1017) {
                 message = "❌ Invalid DB credentials";
-            } else if (e.getErrorCode() == 17002) {
+            } else if (vendor.getErrorCode() == 17002) {
                 message = "❌ Database connection failed";
             } else {
-                message = "❌ SQL execution failed with code " + e.getErrorCode() + ": " + e.getMessage();
+                message = "❌ SQL execution failed with code " + vendor.getErrorCode() + ": " + vendor.getMessage();
             }
 
             logger.error("ERROR: {}", message);
-            throw new SQLException(message, e);
+            throw new SQLException(message, vendor.getSQLState(), vendor.getErrorCode(), e);
 
         } catch (IOException e) {
             String msg = "❌ Failed to read SQL file: " + e.getMessage();
@@ -73,4 +112,125 @@ public class SqlExecutor {
             throw new IOException(msg);
         }
     }
+
+    private static class ScriptStats {
+        long statements;
+        long rowsAffected;
+        long failed;
+    }
+
+    private ScriptStats runScript(Connection conn, SqlStatementSplitter splitter, int batchSize, int commitInterval,
+            boolean continueOnError, Cancellation cancellation) throws IOException, SQLException {
+        ScriptStats stats = new ScriptStats();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        try (Statement statement = conn.createStatement();
+             Cancellation.Registration ignored = cancellation.onCancel(() -> cancel(statement))) {
+            int pendingBatch = 0;
+            long sinceCommit = 0;
+            String sql;
+
+            while ((sql = splitter.next()) != null) {
+                if (cancellation.isCancelled()) {
+                    throw new SQLException("Script cancelled after " + stats.statements + " statements");
+                }
+                logger.debug("Executing: {}", sql);
+                if (continueOnError) {
+                    try {
+                        if (!statement.execute(sql)) {
+                            stats.rowsAffected += Math.max(statement.getUpdateCount(), 0);
+                        }
+                    } catch (SQLException e) {
+                        if (cancellation.isCancelled()) {
+                            throw e;
+                        }
+                        stats.failed++;
+                        logger.warn("Statement {} failed, continuing: {}", stats.statements + 1, e.getMessage());
+                    }
+                } else if (isBatchable(sql)) {
+                    statement.addBatch(sql);
+                    if (++pendingBatch >= batchSize) {
+                        stats.rowsAffected += flush(statement);
+                        pendingBatch = 0;
+                    }
+                } else {
+                    if (pendingBatch > 0) {
+                        stats.rowsAffected += flush(statement);
+                        pendingBatch = 0;
+                    }
+                    if (!statement.execute(sql)) {
+                        stats.rowsAffected += Math.max(statement.getUpdateCount(), 0);
+                    }
+                }
+
+                stats.statements++;
+                if (++sinceCommit >= commitInterval) {
+                    if (pendingBatch > 0) {
+                        stats.rowsAffected += flush(statement);
+                        pendingBatch = 0;
+                    }
+                    conn.commit();
+                    sinceCommit = 0;
+                    logger.info("Committed {} statements so far", stats.statements);
+                }
+            }
+
+            if (pendingBatch > 0) {
+                stats.rowsAffected += flush(statement);
+            }
+            conn.commit();
+            return stats;
+
+        } catch (SQLException | IOException | RuntimeException e) {
+            logger.error("SQL script failed after {} statements, rolling back uncommitted work", stats.statements);
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void cancel(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            logger.warn("Could not cancel SQL statement: {}", e.getMessage());
+        }
+    }
+
+    private static long flush(Statement statement) throws SQLException {
+        long rows = 0;
+        for (int count : statement.executeBatch()) {
+            // SUCCESS_NO_INFO (-2) means the driver did not report a count
+            rows += Math.max(count, 0);
+        }
+        statement.clearBatch();
+        return rows;
+    }
+
+    private static boolean isBatchable(String sql) {
+        int start = 0;
+        while (start < sql.length() && (Character.isWhitespace(sql.charAt(start)) || sql.charAt(start) == '(')) {
+            start++;
+        }
+        int end = start;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        String keyword = sql.substring(start, end).toUpperCase(Locale.ROOT);
+        return keyword.equals("INSERT") || keyword.equals("UPDATE")
+                || keyword.equals("DELETE") || keyword.equals("MERGE");
+    }
+
+    private static SQLException vendorException(SQLException e) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof SQLException && ((SQLException) cause).getErrorCode() != 0) {
+                return (SQLException) cause;
+            }
+            cause = cause.getCause();
+        }
+        return e;
+    }
 }
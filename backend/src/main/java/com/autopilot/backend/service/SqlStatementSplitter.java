@@ -0,0 +1,145 @@
+package com.autopilot.backend.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a SQL script into statements while reading it incrementally, so
+ * scripts of any size are never held in memory as a whole.
+ * <p>
+ * Statements end at a {@code ;} outside of quotes and comments, or at a line
+ * containing only {@code /} (SQL*Plus style). PL/SQL blocks (DECLARE/BEGIN and
+ * CREATE PROCEDURE/FUNCTION/PACKAGE/TRIGGER/TYPE) keep their inner semicolons
+ * and only end at a {@code /} line or the end of the file. Comments are dropped,
+ * except optimizer hints (block comments starting with {@code /*+}).
+ */
+public class SqlStatementSplitter {
+
+    private static final Pattern PLSQL_BLOCK = Pattern.compile(
+            "^(DECLARE|BEGIN|CREATE\\s+(OR\\s+REPLACE\\s+)?((NON)?EDITIONABLE\\s+)?"
+                    + "(PROCEDURE|FUNCTION|PACKAGE|TRIGGER|TYPE))\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final BufferedReader reader;
+    private final StringBuilder statement = new StringBuilder();
+    private String line;
+    private int pos;
+    private boolean inSingleQuote;
+    private boolean inDoubleQuote;
+    private boolean inComment;
+    private boolean keepComment;
+    private Boolean plsqlBlock;
+
+    public SqlStatementSplitter(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /** The next statement without its terminating delimiter, or {@code null} at the end of the script. */
+    public String next() throws IOException {
+        while (true) {
+            if (line == null || pos > line.length()) {
+                line = reader.readLine();
+                pos = 0;
+                if (line == null) {
+                    return take();
+                }
+                if (!inSingleQuote && !inDoubleQuote && !inComment && line.trim().equals("/")) {
+                    pos = line.length() + 1;
+                    String sql = take();
+                    if (sql != null) {
+                        return sql;
+                    }
+                    continue;
+                }
+            }
+
+            if (pos == line.length()) {
+                // End of line: keep line breaks inside literals and between statement lines
+                pos++;
+                if (inSingleQuote || inDoubleQuote || (inComment && keepComment)) {
+                    statement.append('\n');
+                } else if (statement.length() > 0) {
+                    // Drop trailing blanks left by a stripped comment
+                    int end = statement.length();
+                    while (end > 0 && (statement.charAt(end - 1) == ' ' || statement.charAt(end - 1) == '\t')) {
+                        end--;
+                    }
+                    statement.setLength(end);
+                    statement.append('\n');
+                }
+                continue;
+            }
+
+            char c = line.charAt(pos++);
+            char next = pos < line.length() ? line.charAt(pos) : '\0';
+
+            if (inComment) {
+                if (keepComment) {
+                    statement.append(c);
+                }
+                if (c == '*' && next == '/') {
+                    // A dropped comment still separates the tokens around it
+                    statement.append(keepComment ? '/' : ' ');
+                    pos++;
+                    inComment = false;
+                }
+            } else if (inSingleQuote) {
+                statement.append(c);
+                if (c == '\'') {
+                    if (next == '\'') {
+                        statement.append(next);
+                        pos++;
+                    } else {
+                        inSingleQuote = false;
+                    }
+                }
+            } else if (inDoubleQuote) {
+                statement.append(c);
+                if (c == '"') {
+                    inDoubleQuote = false;
+                }
+            } else if (c == '-' && next == '-') {
+                pos = line.length();
+            } else if (c == '/' && next == '*') {
+                inComment = true;
+                keepComment = pos + 1 < line.length() && line.charAt(pos + 1) == '+';
+                pos++;
+                if (keepComment) {
+                    statement.append("/*");
+                }
+            } else if (c == '\'') {
+                inSingleQuote = true;
+                statement.append(c);
+            } else if (c == '"') {
+                inDoubleQuote = true;
+                statement.append(c);
+            } else if (c == ';') {
+                if (isPlsqlBlock()) {
+                    statement.append(c);
+                } else {
+                    String sql = take();
+                    if (sql != null) {
+                        return sql;
+                    }
+                }
+            } else {
+                statement.append(c);
+            }
+        }
+    }
+
+    private boolean isPlsqlBlock() {
+        if (plsqlBlock == null) {
+            plsqlBlock = PLSQL_BLOCK.matcher(statement.toString().stripLeading()).find();
+        }
+        return plsqlBlock;
+    }
+
+    private String take() {
+        String sql = statement.toString().trim();
+        statement.setLength(0);
+        plsqlBlock = null;
+        return sql.isEmpty() ? null : sql;
+    }
+}
@@ -0,0 +1,247 @@
+package com.autopilot.backend.service;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.keyverifier.AcceptAllServerKeyVerifier;
+import org.apache.sshd.client.session.ClientSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.autopilot.backend.config.ServerConfig;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps one authenticated SSH session per host, user and key, shared by every
+ * task and run that targets it. Uploads and commands open channels on the
+ * pooled session instead of paying for a new handshake each time. Sessions
+ * that close are reopened on next use; idle ones are evicted.
+ */
+@Component
+public class SshSessionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SshSessionPool.class);
+
+    private final KeyMaterialCache keyCache;
+    private final SshClient client;
+    private final long connectTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final ConcurrentHashMap<SessionKey, PooledSession> sessions = new ConcurrentHashMap<>();
+
+    public SshSessionPool(KeyMaterialCache keyCache,
+            @Value("${autopilot.ssh.connect-timeout-ms:15000}") long connectTimeoutMillis,
+            @Value("${autopilot.ssh.idle-timeout-ms:300000}") long idleTimeoutMillis) {
+        this.keyCache = keyCache;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.client = SshClient.setUpDefaultClient();
+        // Same trust model as the former "ssh -o StrictHostKeyChecking=no"
+        this.client.setServerKeyVerifier(AcceptAllServerKeyVerifier.INSTANCE);
+        this.client.start();
+    }
+
+    private static final class SessionKey {
+        private final String host;
+        private final int port;
+        private final String username;
+        private final String keyPath;
+
+        private SessionKey(String host, int port, String username, String keyPath) {
+            this.host = host;
+            this.port = port;
+            this.username = username;
+            this.keyPath = keyPath;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SessionKey)) {
+                return false;
+            }
+            SessionKey other = (SessionKey) o;
+            return port == other.port && host.equals(other.host) && Objects.equals(username, other.username)
+                    && Objects.equals(keyPath, other.keyPath);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(host, port, username, keyPath);
+        }
+
+        @Override
+        public String toString() {
+            return username + "@" + host + ":" + port;
+        }
+    }
+
+    private static final class PooledSession {
+        // A lock rather than a monitor: connecting blocks for seconds, which would pin a virtual thread
+        private final ReentrantLock lock = new ReentrantLock();
+        private ClientSession session;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private final AtomicInteger leases = new AtomicInteger();
+        private boolean evicted;
+
+        private boolean isUsable() {
+            return session != null && session.isOpen() && session.isAuthenticated();
+        }
+    }
+
+    private static SessionKey keyOf(ServerConfig config) {
+        int port = config.getServerPort() != null ? config.getServerPort() : 22;
+        return new SessionKey(config.getServerIp(), port, config.getServerUsername(),
+                config.getPrivateKeyPemFilepath());
+    }
+
+    /** A pooled session handed out to one upload or command; closing it returns the session to the pool. */
+    public static final class Lease implements AutoCloseable {
+        private final PooledSession pooled;
+        private final ClientSession session;
+
+        private Lease(PooledSession pooled, ClientSession session) {
+            this.pooled = pooled;
+            this.session = session;
+        }
+
+        public ClientSession getSession() {
+            return session;
+        }
+
+        @Override
+        public void close() {
+            pooled.lastUsed = System.currentTimeMillis();
+            pooled.leases.decrementAndGet();
+        }
+    }
+
+    /** Lease an authenticated session for the task's host, opening one if none is pooled. */
+    public Lease acquire(ServerConfig config) throws IOException {
+        SessionKey key = keyOf(config);
+        while (true) {
+            PooledSession pooled = sessions.computeIfAbsent(key, k -> new PooledSession());
+            // Connecting can take seconds, so lock only this host's entry
+            pooled.lock.lock();
+            try {
+                if (pooled.evicted) {
+                    continue;
+                }
+                if (!pooled.isUsable()) {
+                    closeQuietly(pooled.session);
+                    pooled.session = connect(key, config);
+                }
+                pooled.leases.incrementAndGet();
+                pooled.lastUsed = System.currentTimeMillis();
+                return new Lease(pooled, pooled.session);
+            } finally {
+                pooled.lock.unlock();
+            }
+        }
+    }
+
+    private ClientSession connect(SessionKey key, ServerConfig config) throws IOException {
+        logger.info("Opening SSH session to {}", key);
+        ClientSession session = client.connect(key.username, key.host, key.port)
+                .verify(connectTimeoutMillis)
+                .getSession();
+        try {
+            for (KeyPair keyPair : keyCache.load(config)) {
+                session.addPublicKeyIdentity(keyPair);
+            }
+            session.auth().verify(connectTimeoutMillis);
+            return session;
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(session);
+            throw new IOException("❌ SSH authentication failed for " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drop the pooled session for the task's host if it is no longer usable, so
+     * the next lease reconnects. A healthy session is kept: other tasks may be
+     * using it.
+     */
+    public void invalidate(ServerConfig config) {
+        SessionKey key = keyOf(config);
+        PooledSession pooled = sessions.get(key);
+        if (pooled != null) {
+            pooled.lock.lock();
+            try {
+                if (!pooled.isUsable()) {
+                    evict(key, pooled);
+                }
+            } finally {
+                pooled.lock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${autopilot.ssh.eviction-interval-ms:60000}")
+    public void evictIdleSessions() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        sessions.forEach((key, pooled) -> {
+            pooled.lock.lock();
+            try {
+                // Sessions with a command still running are never idle
+                if (pooled.leases.get() == 0 && (pooled.lastUsed < cutoff || !pooled.isUsable())) {
+                    logger.info("Closing idle SSH session to {}", key);
+                    evict(key, pooled);
+                }
+            } finally {
+                pooled.lock.unlock();
+            }
+        });
+    }
+
+    private void evict(SessionKey key, PooledSession pooled) {
+        pooled.lock.lock();
+        try {
+            pooled.evicted = true;
+            sessions.remove(key, pooled);
+            closeQuietly(pooled.session);
+        } finally {
+            pooled.lock.unlock();
+        }
+    }
+
+    public List<String> getOpenSessions() {
+        List<String> open = new ArrayList<>();
+        sessions.forEach((key, pooled) -> {
+            if (pooled.isUsable()) {
+                open.add(key.toString());
+            }
+        });
+        return open;
+    }
+
+    private static void closeQuietly(ClientSession session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close SSH session: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        sessions.values().forEach(pooled -> closeQuietly(pooled.session));
+        sessions.clear();
+        client.stop();
+    }
+}
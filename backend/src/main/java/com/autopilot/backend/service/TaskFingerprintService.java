@@ -0,0 +1,169 @@
+package com.autopilot.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.autopilot.backend.config.DBConfig;
+import com.autopilot.backend.config.ServerConfig;
+import com.autopilot.backend.loader.ExecutionPlan;
+import com.autopilot.backend.loader.PlannedTask;
+import com.autopilot.backend.model.TaskFingerprint;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+/**
+ * Up-to-date checks for incremental runs, in the spirit of a build tool.
+ * <p>
+ * A task's fingerprint is a SHA-256 over its type, its config (with keys in a
+ * fixed order) and the content of the files it reads: the SQL file, the shell
+ * script and the host inventory. When a task succeeds its fingerprint is stored
+ * for the user; a later incremental run skips every task whose fingerprint is
+ * already stored. Dependencies are not part of the fingerprint, so changing one
+ * task re-runs only that task.
+ */
+@Service
+public class TaskFingerprintService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskFingerprintService.class);
+
+    private static final ObjectMapper canonicalMapper = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration retention;
+
+    public TaskFingerprintService(MongoTemplate mongoTemplate,
+            @Value("${autopilot.runs.incremental.retention-days:30}") long retentionDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    /**
+     * Fingerprint every task of the plan and load, in one query, those that
+     * already succeeded for the owner. If the lookup fails every task runs.
+     */
+    public TaskSkipPolicy begin(String owner, ExecutionPlan plan) {
+        Map<PlannedTask, String> keys = new IdentityHashMap<>();
+        for (ExecutionPlan.Phase phase : plan.getPhases().values()) {
+            for (PlannedTask task : phase.getTasks()) {
+                String fingerprint = fingerprint(task);
+                if (fingerprint != null) {
+                    keys.put(task, owner + ":" + fingerprint);
+                }
+            }
+        }
+
+        Set<String> upToDate = new HashSet<>();
+        if (!keys.isEmpty()) {
+            Query query = new Query(Criteria.where("_id").in(keys.values()));
+            query.fields().include("_id");
+            try {
+                for (TaskFingerprint stored : mongoTemplate.find(query, TaskFingerprint.class)) {
+                    upToDate.add(stored.getId());
+                }
+            } catch (RuntimeException e) {
+                logger.error("❌ Could not load task fingerprints, running every task: {}", e.getMessage());
+            }
+        }
+
+        return new TaskSkipPolicy() {
+            @Override
+            public boolean isUpToDate(PlannedTask task) {
+                String key = keys.get(task);
+                return key != null && upToDate.contains(key);
+            }
+
+            @Override
+            public void onSucceeded(PlannedTask task) {
+                String key = keys.get(task);
+                if (key != null) {
+                    record(owner, key, task);
+                }
+            }
+        };
+    }
+
+    private void record(String owner, String key, PlannedTask task) {
+        TaskFingerprint fingerprint = new TaskFingerprint();
+        fingerprint.setId(key);
+        fingerprint.setOwner(owner);
+        fingerprint.setTaskId(task.getId());
+        fingerprint.setType(task.getType());
+        fingerprint.setSucceededAt(Instant.now());
+        fingerprint.setExpiresAt(Instant.now().plus(retention));
+        try {
+            mongoTemplate.save(fingerprint);
+        } catch (RuntimeException e) {
+            logger.error("❌ Could not store the fingerprint of task {}: {}", task.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * The task's input fingerprint as hex, or {@code null} when it has none
+     * (invalid config, unknown type or an input file that cannot be read),
+     * in which case it is never considered up to date.
+     */
+    public static String fingerprint(PlannedTask task) {
+        if (task.getError() != null || task.getConfig() == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(task.getType().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+
+            digest.update(canonicalMapper.writeValueAsBytes(task.getConfig()));
+
+            if (task.getConfig() instanceof DBConfig) {
+                digestFile(digest, ((DBConfig) task.getConfig()).getSqlFilepath());
+            } else if (task.getConfig() instanceof ServerConfig) {
+                ServerConfig serverConfig = (ServerConfig) task.getConfig();
+                digestFile(digest, serverConfig.getShellScriptFilepath());
+                digestFile(digest, serverConfig.getInventoryFilepath());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void digestFile(MessageDigest digest, String path) throws IOException {
+        digest.update((byte) 0);
+        if (path == null) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(Path.of(path))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+}
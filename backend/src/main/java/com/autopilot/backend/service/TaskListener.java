@@ -0,0 +1,29 @@
+package com.autopilot.backend.service;
+
+import com.autopilot.backend.model.TaskResult;
+
+/**
+ * Receives progress of a run as it happens. Callbacks for different tasks of
+ * the same phase may arrive concurrently from task executor threads.
+ */
+public interface TaskListener {
+
+    TaskListener NONE = new TaskListener() {
+    };
+
+    default void onPhaseStart(String phase) {
+    }
+
+    default void onTaskStart(String phase, int index, String id, String type) {
+    }
+
+    /** A single line of output produced by a running task, e.g. remote script stdout. */
+    default void onTaskOutput(String phase, int index, String line) {
+    }
+
+    default void onTaskFinish(String phase, TaskResult result) {
+    }
+
+    default void onPhaseFinish(String phase) {
+    }
+}
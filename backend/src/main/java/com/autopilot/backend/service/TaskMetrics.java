@@ -0,0 +1,77 @@
+package com.autopilot.backend.service;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.autopilot.backend.model.TaskResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Task level metrics: a latency histogram per task type and outcome, and a
+ * failure counter per task type and error class.
+ */
+@Component
+public class TaskMetrics {
+
+    private final MeterRegistry registry;
+
+    public TaskMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordTask(TaskResult result) {
+        Timer.builder("autopilot.task.duration")
+                .description("Task execution time")
+                .tag("type", typeTag(result.getType()))
+                .tag("outcome", result.getStatus().name().toLowerCase(Locale.ROOT))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(result.getDurationMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void recordError(String type, String errorClass) {
+        Counter.builder("autopilot.task.errors")
+                .description("Failed tasks by error class")
+                .tag("type", typeTag(type))
+                .tag("error", errorClass)
+                .register(registry)
+                .increment();
+    }
+
+    // Task types come from user configs, so anything unexpected is folded into one tag value
+    private static String typeTag(String type) {
+        if ("db".equals(type) || "shell".equals(type) || "api".equals(type)) {
+            return type;
+        }
+        return "other";
+    }
+
+    /**
+     * A low-cardinality error class for a task failure, e.g. {@code sql_1017}
+     * for an Oracle invalid credentials error.
+     */
+    public static String classify(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && ((SQLException) cause).getErrorCode() != 0) {
+                return "sql_" + ((SQLException) cause).getErrorCode();
+            }
+        }
+        if (e instanceof SQLException) {
+            return "sql";
+        }
+        if (e instanceof IllegalArgumentException) {
+            return "config";
+        }
+        if (e instanceof IOException) {
+            return "io";
+        }
+        return e.getClass().getSimpleName();
+    }
+}
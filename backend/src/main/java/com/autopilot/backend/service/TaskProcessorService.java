@@ -2,108 +2,422 @@ package com.autopilot.backend.service;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.autopilot.backend.config.APIConfig;
 import com.autopilot.backend.config.DBConfig;
 import com.autopilot.backend.config.ServerConfig;
 import com.autopilot.backend.loader.ConfigLoader;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.autopilot.backend.loader.ExecutionPlan;
+import com.autopilot.backend.loader.PlannedTask;
+import com.autopilot.backend.loader.TaskGraph;
+import com.autopilot.backend.model.TaskResult;
 
 @Service
 public class TaskProcessorService {
 
     private final SqlExecutor sqlExecutor;
     private final ShellExecutor shellExecutor;
+    private final ShellFanOutExecutor shellFanOutExecutor;
     private final ApiExecutor apiExecutor;
+    private final ExecutorService taskExecutor;
+    private final TaskMetrics taskMetrics;
+    private final ScheduledExecutorService timeoutScheduler;
+
+    // Task timeouts by type when the config sets no timeoutSeconds; 0 or less disables them.
+    // API tasks default to ApiExecutor.taskTimeoutSeconds, which leaves room for their retries.
+    @Value("${autopilot.tasks.timeout.db-seconds:3600}")
+    private long dbTimeoutSeconds;
+
+    @Value("${autopilot.tasks.timeout.shell-seconds:3600}")
+    private long shellTimeoutSeconds;
 
     @Autowired
     public TaskProcessorService(SqlExecutor sqlExecutor,
             ShellExecutor shellExecutor,
-            ApiExecutor apiExecutor) {
+            ShellFanOutExecutor shellFanOutExecutor,
+            ApiExecutor apiExecutor,
+            @Qualifier("taskExecutor") ExecutorService taskExecutor,
+            TaskMetrics taskMetrics,
+            @Qualifier("timeoutScheduler") ScheduledExecutorService timeoutScheduler) {
         this.sqlExecutor = sqlExecutor;
         this.shellExecutor = shellExecutor;
+        this.shellFanOutExecutor = shellFanOutExecutor;
         this.apiExecutor = apiExecutor;
+        this.taskExecutor = taskExecutor;
+        this.taskMetrics = taskMetrics;
+        this.timeoutScheduler = timeoutScheduler;
     }
 
     /**
      * Process tasks and return a combined output string with status messages.
-     * 
+     *
      * @param configPath       Path to config.json
      * @param installationType "pre", "post", or "basic" etc.
      * @return Combined result message of all tasks.
      */
     public String processTasks(String configPath, String installationType)
             throws IOException, SQLException, InterruptedException {
-        JsonNode rootNode = ConfigLoader.loadAllTasks(configPath);
-        JsonNode tasks = rootNode.path(installationType);
+        ExecutionPlan plan = ConfigLoader.compile(ConfigLoader.loadAllTasks(configPath));
+        return processTasks(plan, installationType, TaskListener.NONE);
+    }
+
+    /**
+     * Run one phase of an already compiled plan, reporting progress to the listener.
+     * <p>
+     * Tasks are scheduled on the task executor following the phase's dependency
+     * graph (see {@link TaskGraph}); the output is always reported in declaration
+     * order regardless of completion order.
+     */
+    public String processTasks(ExecutionPlan plan, String installationType, TaskListener listener)
+            throws InterruptedException {
+        return processTasks(plan, installationType, listener, TaskSkipPolicy.NONE);
+    }
+
+    /**
+     * Same as {@link #processTasks(ExecutionPlan, String, TaskListener)}, skipping
+     * the tasks the policy reports as up to date.
+     */
+    public String processTasks(ExecutionPlan plan, String installationType, TaskListener listener,
+            TaskSkipPolicy skipPolicy) throws InterruptedException {
+        return processTasks(plan, installationType, listener, skipPolicy, new Cancellation());
+    }
 
-        if (!tasks.isArray()) {
+    /**
+     * Same as {@link #processTasks(ExecutionPlan, String, TaskListener, TaskSkipPolicy)}.
+     * Cancelling {@code cancellation} aborts the running tasks and skips the
+     * others; each task is also aborted on its own once its timeout expires.
+     */
+    public String processTasks(ExecutionPlan plan, String installationType, TaskListener listener,
+            TaskSkipPolicy skipPolicy, Cancellation cancellation) throws InterruptedException {
+        return processTasks(plan, installationType, listener, skipPolicy, cancellation, new RunVariables());
+    }
+
+    /**
+     * Same as {@link #processTasks(ExecutionPlan, String, TaskListener, TaskSkipPolicy, Cancellation)},
+     * with the run's variables, shared by all of its phases.
+     */
+    public String processTasks(ExecutionPlan plan, String installationType, TaskListener listener,
+            TaskSkipPolicy skipPolicy, Cancellation cancellation, RunVariables variables)
+            throws InterruptedException {
+        return processTasks(plan, installationType, listener, skipPolicy, cancellation, variables,
+                RunResponseBodies.discarding());
+    }
+
+    /**
+     * Same as {@link #processTasks(ExecutionPlan, String, TaskListener, TaskSkipPolicy, Cancellation, RunVariables)},
+     * handing the full response bodies of API tasks to {@code responseBodies}.
+     */
+    public String processTasks(ExecutionPlan plan, String installationType, TaskListener listener,
+            TaskSkipPolicy skipPolicy, Cancellation cancellation, RunVariables variables,
+            RunResponseBodies responseBodies) throws InterruptedException {
+        ExecutionPlan.Phase phase = plan.getPhase(installationType);
+
+        if (phase == null) {
             return "No tasks found for section: " + installationType;
         }
 
         StringBuilder output = new StringBuilder();
+        for (TaskResult result : runTasks(phase, listener, skipPolicy, cancellation, variables, responseBodies)) {
+            output.append("Task #").append(result.getIndex() + 1);
+            if (result.getId() != null) {
+                output.append(" [").append(result.getId()).append("]");
+            }
+            output.append(": type = ").append(result.getType()).append("\n");
+            output.append(result.getOutput());
+            output.append("\n");
+        }
+
+        return output.toString();
+    }
+
+    private List<TaskResult> runTasks(ExecutionPlan.Phase phase, TaskListener listener, TaskSkipPolicy skipPolicy,
+            Cancellation runCancellation, RunVariables variables, RunResponseBodies responseBodies)
+            throws InterruptedException {
+        String phaseName = phase.getName();
+        List<PlannedTask> tasks = phase.getTasks();
+        TaskGraph graph = phase.getGraph();
 
-        int taskCount = 0;
+        @SuppressWarnings("unchecked")
+        CompletableFuture<TaskResult>[] futures = new CompletableFuture[graph.size()];
+        for (int index : graph.order()) {
+            List<Integer> dependencies = graph.dependenciesOf(index);
+            CompletableFuture<?>[] upstream = dependencies.stream()
+                    .map(dependency -> futures[dependency])
+                    .toArray(CompletableFuture[]::new);
 
-        for (JsonNode task : tasks) {
-            taskCount++;
-            String type = task.path("type").asText();
-            output.append("Task #").append(taskCount).append(": type = ").append(type).append("\n");
+            futures[index] = CompletableFuture.allOf(upstream).thenComposeAsync(ignored -> {
+                PlannedTask task = tasks.get(index);
+                // Sequential phases only keep the order, a failure does not stop the tasks after it
+                for (int dependency : graph.isSequential() ? List.<Integer>of() : dependencies) {
+                    TaskResult before = futures[dependency].join();
+                    if (!before.isSucceeded()) {
+                        String name = before.getId() != null ? before.getId() : "#" + (dependency + 1);
+                        TaskResult skipped = new TaskResult(index, task.getId(), task.getType(),
+                                TaskResult.Status.SKIPPED,
+                                "⏭️ Skipped: dependency " + name + " did not succeed\n", 0);
+                        listener.onTaskFinish(phaseName, skipped);
+                        taskMetrics.recordTask(skipped);
+                        return CompletableFuture.completedFuture(skipped);
+                    }
+                }
+                if (runCancellation.isCancelled()) {
+                    TaskResult skipped = new TaskResult(index, task.getId(), task.getType(),
+                            TaskResult.Status.SKIPPED, "⏭️ Skipped: run cancelled\n", 0);
+                    listener.onTaskFinish(phaseName, skipped);
+                    taskMetrics.recordTask(skipped);
+                    return CompletableFuture.completedFuture(skipped);
+                }
+                // Variables are not persisted, so tasks setting or using them always run
+                if (!RunVariables.isRunDependent(task) && skipPolicy.isUpToDate(task)) {
+                    TaskResult upToDate = new TaskResult(index, task.getId(), task.getType(),
+                            TaskResult.Status.UP_TO_DATE,
+                            "⏭️ Up to date: already succeeded with the same inputs\n", 0);
+                    listener.onTaskFinish(phaseName, upToDate);
+                    taskMetrics.recordTask(upToDate);
+                    return CompletableFuture.completedFuture(upToDate);
+                }
+                listener.onTaskStart(phaseName, index, task.getId(), task.getType());
+                return runWithTimeout(index, task, line -> listener.onTaskOutput(phaseName, index, line),
+                        runCancellation, variables)
+                        .thenApply(result -> {
+                            if (result.getStatus() == TaskResult.Status.SUCCEEDED) {
+                                skipPolicy.onSucceeded(task);
+                            }
+                            responseBodies.add(phaseName, result);
+                            listener.onTaskFinish(phaseName, result);
+                            taskMetrics.recordTask(result);
+                            return result;
+                        });
+            }, taskExecutor);
+        }
 
+        List<TaskResult> results = new ArrayList<>(futures.length);
+        for (CompletableFuture<TaskResult> future : futures) {
             try {
-                switch (type) {
-                    case "db":
-                        DBConfig dbConfig = ConfigLoader.convertToDBConfig(task.get("config"));
-                        sqlExecutor.execute(dbConfig.getSqlFilepath(), dbConfig);
-                        output.append("✅ SQL executed successfully for file: ").append(dbConfig.getSqlFilepath())
-                                .append("\n");
-                        break;
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Task scheduling failed", e.getCause());
+            }
+        }
+        return results;
+    }
 
-                    case "shell":
-                        ServerConfig serverConfig = ConfigLoader.convertToServerConfig(task.get("config"));
-                        String shellResult = shellExecutor.runShellFromConfig(serverConfig);
-                        output.append(shellResult).append("\n");
+    /**
+     * Run the task under its own cancellation, a child of the run's, that fires
+     * when the task's timeout expires. A task that fails because it was
+     * cancelled reports why.
+     */
+    private CompletableFuture<TaskResult> runWithTimeout(int index, PlannedTask task, Consumer<String> outputSink,
+            Cancellation runCancellation, RunVariables variables) {
+        Cancellation cancellation = runCancellation.child();
+        long timeoutSeconds = timeoutSeconds(task);
+        ScheduledFuture<?> timer = timeoutSeconds > 0
+                ? timeoutScheduler.schedule(() -> cancellation.cancel(Cancellation.Reason.TIMED_OUT),
+                        timeoutSeconds, TimeUnit.SECONDS)
+                : null;
 
-                        break;
-                    case "api":
-                        APIConfig apiConfig = ConfigLoader.convertToAPIConfig(task.get("config"));
+        return runTask(index, task, outputSink, cancellation, variables).thenApply(result -> {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            cancellation.detach();
+            if (!cancellation.isCancelled() || result.isSucceeded()) {
+                return result;
+            }
+            String reason;
+            if (cancellation.getReason() == Cancellation.Reason.TIMED_OUT) {
+                reason = "⌛ Task timed out after " + timeoutSeconds + "s";
+                taskMetrics.recordError(task.getType(), "timeout");
+            } else {
+                reason = "🛑 Task cancelled";
+                taskMetrics.recordError(task.getType(), "cancelled");
+            }
+            return new TaskResult(index, task.getId(), task.getType(), TaskResult.Status.FAILED,
+                    result.getOutput() + reason + "\n", result.getDurationMillis(), result.getResponseBody());
+        });
+    }
+
+    private long timeoutSeconds(PlannedTask task) {
+        Object config = task.getConfig();
+        if (config instanceof DBConfig) {
+            Integer seconds = ((DBConfig) config).getTimeoutSeconds();
+            return seconds != null ? seconds : dbTimeoutSeconds;
+        }
+        if (config instanceof ServerConfig) {
+            Integer seconds = ((ServerConfig) config).getTimeoutSeconds();
+            return seconds != null ? seconds : shellTimeoutSeconds;
+        }
+        if (config instanceof APIConfig) {
+            Integer seconds = ((APIConfig) config).getTimeoutSeconds();
+            return seconds != null ? seconds : apiExecutor.taskTimeoutSeconds((APIConfig) config);
+        }
+        return 0;
+    }
+
+    private CompletableFuture<TaskResult> runTask(int index, PlannedTask task, Consumer<String> outputSink,
+            Cancellation cancellation, RunVariables variables) {
+        long start = System.currentTimeMillis();
+        if ("api".equals(task.getType()) && task.getError() == null) {
+            // Sent asynchronously so the task thread is released while the request is in flight
+            APIConfig apiConfig = variables.resolve((APIConfig) task.getConfig());
+            return apiExecutor.executeAsync(apiConfig, cancellation)
+                    .thenApply(responseConfig -> {
+                        // From here the result carries the body, for the run to keep or close
                         try {
-                            APIConfig responseConfig = apiExecutor.execute(apiConfig);
-                            int statusCode = responseConfig.getResponseCode();
-
-                            if (statusCode == 200) {
-                                output.append("✅ API executed successfully with response code: ").append(statusCode)
-                                        .append("\n");
-                            } else if (statusCode > 0) {
-                                output.append("❌ API execution failed with response code: ").append(statusCode)
-                                        .append("\n");
-                            } else if (statusCode == -1) {
-                                output.append("Incorrect URL").append("\n");
-                                output.append("❌ API execution threw an exception: ")
-                                        .append(responseConfig.getResponseMessage()).append("\n");
-                            } else {
-                                output.append("❌ API execution returned unknown status code: ").append(statusCode)
-                                        .append("\n");
+                            return apiResult(index, task, responseConfig, variables, cancellation, start);
+                        } catch (RuntimeException e) {
+                            if (responseConfig.getResponseBody() != null) {
+                                responseConfig.getResponseBody().close();
                             }
-                        } catch (Exception e) {
-                            output.append("❌ API execution threw an unexpected exception: ").append(e.getMessage())
-                                    .append("\n");
+                            throw e;
                         }
-                        break;
+                    })
+                    .exceptionally(error -> {
+                        Throwable e = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause()
+                                : error;
+                        recordError(task.getType(), TaskMetrics.classify(e), cancellation);
+                        return new TaskResult(index, task.getId(), task.getType(), TaskResult.Status.FAILED,
+                                "❌ API execution threw an unexpected exception: " + e.getMessage() + "\n",
+                                System.currentTimeMillis() - start);
+                    });
+        }
+        return CompletableFuture.completedFuture(runBlockingTask(index, task, outputSink, cancellation, start));
+    }
+
+    private TaskResult apiResult(int index, PlannedTask task, APIConfig responseConfig, RunVariables variables,
+            Cancellation cancellation, long start) {
+        StringBuilder output = new StringBuilder();
+        boolean succeeded = false;
+        int statusCode = responseConfig.getResponseCode();
+
+        if (statusCode == 200) {
+            output.append("✅ API executed successfully with response code: ").append(statusCode)
+                    .append("\n");
+            succeeded = true;
+        } else if (statusCode > 0) {
+            output.append("❌ API execution failed with response code: ").append(statusCode)
+                    .append("\n");
+            String preview = responseConfig.getResponseMessage();
+            if (preview != null && !preview.isBlank()) {
+                output.append("Response: ").append(preview.strip()).append("\n");
+            }
+            recordError(task.getType(), "http_" + statusCode, cancellation);
+        } else if (statusCode == ApiExecutor.CIRCUIT_OPEN) {
+            recordError(task.getType(), "circuit_open", cancellation);
+            output.append("❌ API call skipped: ").append(responseConfig.getResponseMessage()).append("\n");
+        } else if (statusCode == ApiExecutor.FAILED) {
+            recordError(task.getType(), "connection", cancellation);
+            output.append("Incorrect URL").append("\n");
+            output.append("❌ API execution threw an exception: ")
+                    .append(responseConfig.getResponseMessage()).append("\n");
+        } else {
+            output.append("❌ API execution returned unknown status code: ").append(statusCode)
+                    .append("\n");
+        }
+
+        ApiResponseBody body = responseConfig.getResponseBody();
+        if (body != null && body.isTruncated()) {
+            output.append("⚠️ Response body of ").append(body.getSize())
+                    .append(" bytes exceeded the capture limit and was cut off\n");
+        }
 
-                    default:
-                        output.append("⚠️ Unknown task type: ").append(type).append("\n");
+        if (succeeded && responseConfig.getExtract() != null && !responseConfig.getExtract().isEmpty()) {
+            String error = body != null ? body.getExtractionError() : "no response body";
+            if (error != null) {
+                output.append("❌ Could not extract variables: ").append(error).append("\n");
+                recordError(task.getType(), "extract", cancellation);
+                succeeded = false;
+            } else {
+                variables.putAll(body.getExtracted());
+                // Names only: values may be tokens or other secrets
+                output.append("📌 Variables set: ").append(String.join(", ", body.getExtracted().keySet()))
+                        .append("\n");
+            }
+        }
+
+        return new TaskResult(index, task.getId(), task.getType(),
+                succeeded ? TaskResult.Status.SUCCEEDED : TaskResult.Status.FAILED,
+                output.toString(), System.currentTimeMillis() - start, body);
+    }
+
+    private TaskResult runBlockingTask(int index, PlannedTask task, Consumer<String> outputSink,
+            Cancellation cancellation, long start) {
+        String type = task.getType();
+        StringBuilder output = new StringBuilder();
+        boolean succeeded = false;
+
+        try {
+            if (task.getError() != null) {
+                throw new IllegalArgumentException(task.getError());
+            }
+            switch (type) {
+                case "db":
+                    DBConfig dbConfig = (DBConfig) task.getConfig();
+                    String sqlSummary = sqlExecutor.execute(dbConfig.getSqlFilepath(), dbConfig, cancellation);
+                    output.append("✅ SQL executed successfully for file: ").append(dbConfig.getSqlFilepath())
+                            .append("\n");
+                    output.append(sqlSummary).append("\n");
+                    succeeded = true;
+                    break;
+
+                case "shell":
+                    ServerConfig serverConfig = (ServerConfig) task.getConfig();
+                    if (ShellFanOutExecutor.isFanOut(serverConfig)) {
+                        ShellFanOutExecutor.Report report = shellFanOutExecutor.run(serverConfig, outputSink,
+                                cancellation);
+                        output.append(report.format()).append("\n");
+                        succeeded = report.isSucceeded();
+                        if (!succeeded) {
+                            recordError(type, "hosts_failed", cancellation);
+                        }
                         break;
-                }
-            } catch (Exception e) {
-                output.append("❌ Task failed: ").append(e.getMessage()).append("\n");
+                    }
+                    String shellResult = shellExecutor.runShellFromConfig(serverConfig, outputSink, cancellation);
+                    output.append(shellResult).append("\n");
+                    succeeded = true;
+                    break;
+
+                default:
+                    output.append("⚠️ Unknown task type: ").append(type).append("\n");
+                    taskMetrics.recordError(type, "unknown_type");
+                    break;
             }
-            output.append("\n");
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            recordError(type, TaskMetrics.classify(e), cancellation);
+            output.append("❌ Task failed: ").append(e.getMessage()).append("\n");
         }
 
-        return output.toString();
+        return new TaskResult(index, task.getId(), type,
+                succeeded ? TaskResult.Status.SUCCEEDED : TaskResult.Status.FAILED,
+                output.toString(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Count a failure, unless the task was cancelled or timed out:
+     * {@link #runWithTimeout} counts it once under that reason instead.
+     */
+    private void recordError(String type, String errorClass, Cancellation cancellation) {
+        if (!cancellation.isCancelled()) {
+            taskMetrics.recordError(type, errorClass);
+        }
     }
 }
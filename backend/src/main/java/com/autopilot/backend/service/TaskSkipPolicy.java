@@ -0,0 +1,36 @@
+package com.autopilot.backend.service;
+
+import com.autopilot.backend.loader.PlannedTask;
+
+/**
+ * Decides, just before a task would start, whether it can be skipped as up to
+ * date, and hears about the tasks that then succeed.
+ */
+public interface TaskSkipPolicy {
+
+    TaskSkipPolicy NONE = new TaskSkipPolicy() {
+    };
+
+    default boolean isUpToDate(PlannedTask task) {
+        return false;
+    }
+
+    default void onSucceeded(PlannedTask task) {
+    }
+
+    /** Skips a task when either policy does; both hear about successes. */
+    static TaskSkipPolicy anyOf(TaskSkipPolicy first, TaskSkipPolicy second) {
+        return new TaskSkipPolicy() {
+            @Override
+            public boolean isUpToDate(PlannedTask task) {
+                return first.isUpToDate(task) || second.isUpToDate(task);
+            }
+
+            @Override
+            public void onSucceeded(PlannedTask task) {
+                first.onSucceeded(task);
+                second.onSucceeded(task);
+            }
+        };
+    }
+}
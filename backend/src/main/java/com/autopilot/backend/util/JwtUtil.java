@@ -1,5 +1,7 @@
 package com.autopilot.backend.util;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
 
 import javax.crypto.SecretKey;
@@ -7,9 +9,13 @@ import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -20,12 +26,53 @@ import io.jsonwebtoken.security.Keys;
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    // The signing key and parser are immutable and thread-safe, so they are built once
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    // Tokens that already passed signature verification, dropped when they expire
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtUtil(@Value("${jwt.secret}") String jwtSecret,
+            @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheSize) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        long remainingMillis = verified.expiresAtMillis - System.currentTimeMillis();
+                        return Duration.ofMillis(Math.max(remainingMillis, 0)).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
+    private static final class VerifiedToken {
+        private final Claims claims;
+        private final String subject;
+        private final long expiresAtMillis;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        private VerifiedToken(Claims claims) {
+            this.claims = claims;
+            this.subject = claims.getSubject();
+            this.expiresAtMillis = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        }
     }
 
     public String generateToken(String email) {
@@ -33,50 +80,59 @@ public class JwtUtil {
                 .setSubject(email)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hours
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verify the token once and remember the result until it expires. Returns
+     * {@code null} for a missing, invalid or expired token.
+     */
+    private VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        VerifiedToken verified = verifiedTokens.getIfPresent(token);
+        if (verified != null) {
+            // Cache expiry is not exact, so check the deadline on every hit
+            return System.currentTimeMillis() < verified.expiresAtMillis ? verified : null;
+        }
+        try {
+            verified = new VerifiedToken(parser.parseClaimsJws(token).getBody());
+        } catch (SignatureException | ExpiredJwtException | MalformedJwtException |
+                 UnsupportedJwtException | IllegalArgumentException e) {
+            System.out.println("JWT Validation Error: " + e.getClass().getSimpleName() + " - " + e.getMessage());
+            return null;
+        }
+        verifiedTokens.put(token, verified);
+        return verified;
+    }
+
+    /** The token's subject if it is valid, otherwise {@code null}: one lookup for the auth filter. */
+    public String getVerifiedSubject(String token) {
+        VerifiedToken verified = verify(token);
+        return verified != null ? verified.subject : null;
+    }
+
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return getClaims(token).getSubject();
     }
 
     public boolean isTokenExpired(String token) {
-        Date expiration = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
-        return expiration.before(new Date());
+        return getClaims(token).getExpiration().before(new Date());
     }
 
-    
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (SignatureException | ExpiredJwtException | MalformedJwtException |
-                 UnsupportedJwtException | IllegalArgumentException e) {
-            System.out.println("JWT Validation Error: " + e.getClass().getSimpleName() + " - " + e.getMessage());
-            return false;
-        }
+        return verify(token) != null;
     }
 
     public Claims getClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        VerifiedToken verified = verify(token);
+        if (verified != null) {
+            return verified.claims;
+        }
+        // Not valid: parse again so callers get the same exception as before
+        return parser.parseClaimsJws(token).getBody();
     }
 
 
@@ -86,16 +142,11 @@ public String generateResetToken(String email) {
             .setSubject(email)
             .setIssuedAt(new Date(System.currentTimeMillis()))
             .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 15)) // 15 minutes
-            .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+            .signWith(signingKey, SignatureAlgorithm.HS256)
             .compact();
 }
 
 public String getEmailFromResetToken(String token) {
-    return Jwts.parserBuilder()
-            .setSigningKey(getSigningKey())
-            .build()
-            .parseClaimsJws(token)
-            .getBody()
-            .getSubject();
+    return getClaims(token).getSubject();
 }
 }
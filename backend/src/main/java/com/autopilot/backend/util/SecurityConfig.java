@@ -2,6 +2,11 @@ package com.autopilot.backend.util;
 
 import com.autopilot.backend.model.User;
 import com.autopilot.backend.repository.UserRepository;
+import com.autopilot.backend.service.CachedUserDetailsService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,6 +23,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -31,29 +37,43 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
-    // ✅ Create UserDetailsService from your repository
+    // ✅ Create UserDetailsService from your repository, cached in process
     @Bean
-    public UserDetailsService userDetailsService(UserRepository userRepository) {
-        return email -> {
+    public CachedUserDetailsService userDetailsService(UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${autopilot.users.cache.max-size:10000}") long maxSize,
+            @Value("${autopilot.users.cache.ttl-seconds:300}") long ttlSeconds) {
+        UserDetailsService repositoryLookup = email -> {
             User user = userRepository.findByEmail(email);
             if (user == null) {
                 throw new UsernameNotFoundException("User not found with email: " + email);
             }
             return user; // should implement UserDetails
         };
+        return new CachedUserDetailsService(repositoryLookup, maxSize, Duration.ofSeconds(ttlSeconds), meterRegistry);
     }
 
     // ✅ Define Security Filter Chain
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http,
-            JwtAuthFilter jwtAuthFilter) throws Exception {
+            JwtAuthFilter jwtAuthFilter,
+            @Value("${server.port:8080}") int serverPort,
+            @Value("${management.server.port:-1}") int managementPort) throws Exception {
+        // Without a port of its own, actuator is served with the API and gets no exception
+        boolean separateManagementPort = managementPort > 0 && managementPort != serverPort;
         http
                 .cors().and()
                 .csrf().disable()
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // The management port is internal only, so scrapers need no user login
+                        .requestMatchers(request -> separateManagementPort && request.getLocalPort() == managementPort)
+                        .permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/payment/**").permitAll()
+                        .requestMatchers("/actuator/health", "/livez", "/readyz").permitAll()
+                        // Metrics and circuit breakers describe every user's tasks and upstreams
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/user/**").authenticated() 
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,197 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.autopilot.backend.config.APIConfig;
+import com.autopilot.backend.loader.ConfigLoader;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ApiExecutorTests {
+
+    // 100 000 lines of 10 bytes
+    private static final String LARGE_BODY = "line 0001\n".repeat(100_000);
+
+    @TempDir
+    Path spillDir;
+
+    private HttpServer server;
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    // Requests up to this count are answered 503, later ones 200
+    private volatile int unavailableUntil;
+    private HostCircuitBreakers breakers;
+    private ApiExecutor apiExecutor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            int status = requests.incrementAndGet() <= unavailableUntil ? 503 : 200;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.createContext("/export", exchange -> {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+                out.write(LARGE_BODY.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        // The first request stalls past the attempt timeout, later ones answer at once
+        AtomicInteger stalls = new AtomicInteger();
+        server.createContext("/stall", exchange -> {
+            if (stalls.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(handlers);
+        server.start();
+
+        breakers = new HostCircuitBreakers(3, Duration.ofMinutes(1), System::nanoTime);
+        ResponseCapture capture = new ResponseCapture(64 * 1024, 10L << 20, true, spillDir.toString(), 100,
+                new SimpleMeterRegistry());
+        apiExecutor = new ApiExecutor(5, 5, 3, 1, 5, breakers, capture, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private APIConfig request(String method) {
+        APIConfig config = new APIConfig();
+        config.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/deploy");
+        config.setMethod(method);
+        return config;
+    }
+
+    @Test
+    void idempotentRequestsAreRetriedButPostsAreNot() {
+        unavailableUntil = 2;
+        assertEquals(200, apiExecutor.execute(request("GET")).getResponseCode());
+        assertEquals(3, requests.get());
+
+        requests.set(0);
+        assertEquals(503, apiExecutor.execute(request("POST")).getResponseCode());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void largeGzipBodyIsDecodedAndSpilledWithABoundedPreview() throws Exception {
+        APIConfig config = request("GET");
+        config.setUrl(config.getUrl().replace("/deploy", "/export"));
+
+        APIConfig response = apiExecutor.execute(config);
+
+        assertEquals(200, response.getResponseCode());
+        assertEquals(LARGE_BODY.substring(0, 100), response.getResponseMessage());
+        try (ApiResponseBody body = response.getResponseBody(); InputStream in = body.open()) {
+            assertEquals(LARGE_BODY.length(), body.getSize());
+            assertTrue(body.getWireBytes() < body.getSize(), "gzip should shrink the body");
+            assertFalse(body.isTruncated());
+            assertTrue(Files.exists(body.getFile()));
+            assertEquals(LARGE_BODY, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (var files = Files.list(spillDir)) {
+            assertEquals(0, files.count(), "closing the body deletes its spill file");
+        }
+    }
+
+    @Test
+    void openCircuitFailsFastUntilAProbeSucceeds() {
+        unavailableUntil = Integer.MAX_VALUE;
+        String host = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        assertEquals(503, apiExecutor.execute(request("GET")).getResponseCode());
+        assertEquals(3, requests.get());
+        assertEquals(HostCircuitBreakers.State.OPEN, breakers.state(host));
+
+        APIConfig rejected = apiExecutor.execute(request("GET"));
+        assertEquals(ApiExecutor.CIRCUIT_OPEN, rejected.getResponseCode());
+        assertTrue(rejected.getResponseMessage().contains("Circuit open"), rejected.getResponseMessage());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void stalledAttemptIsRetriedWithinTheTaskTimeout() throws Exception {
+        ExecutorService taskExecutor = Executors.newFixedThreadPool(2);
+        ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            TaskProcessorService processor = new TaskProcessorService(mock(SqlExecutor.class),
+                    mock(ShellExecutor.class), mock(ShellFanOutExecutor.class), apiExecutor, taskExecutor,
+                    new TaskMetrics(new SimpleMeterRegistry()), timeoutScheduler);
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/stall";
+
+            String output = processor.processTasks(ConfigLoader.compile(Map.of("pre", List.of(Map.of(
+                    "type", "api", "id", "call",
+                    "config", Map.of("url", url, "attemptTimeoutSeconds", 1))))), "pre", TaskListener.NONE);
+
+            assertTrue(output.contains("✅ API executed successfully"), output);
+            assertFalse(output.contains("timed out"), output);
+        } finally {
+            taskExecutor.shutdownNow();
+            timeoutScheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void taskTimeoutCoversEveryAttemptAndBackoff() {
+        APIConfig get = request("GET");
+        get.setAttemptTimeoutSeconds(10);
+        // 3 attempts of 5s connect + 10s, plus 2 backoffs of at most 5ms
+        assertEquals(46, apiExecutor.taskTimeoutSeconds(get));
+
+        APIConfig post = request("POST");
+        post.setAttemptTimeoutSeconds(10);
+        assertEquals(15, apiExecutor.taskTimeoutSeconds(post));
+    }
+
+    @Test
+    void halfOpenBreakerLetsOneProbeThrough() {
+        AtomicInteger now = new AtomicInteger();
+        HostCircuitBreakers breaker = new HostCircuitBreakers(1, Duration.ofNanos(10), now::get);
+
+        breaker.tryAcquire("h");
+        breaker.record("h", false);
+        assertFalse(breaker.tryAcquire("h"));
+
+        now.set(10);
+        assertTrue(breaker.tryAcquire("h"));
+        assertFalse(breaker.tryAcquire("h"));
+        breaker.record("h", true);
+        assertEquals(HostCircuitBreakers.State.CLOSED, breaker.state("h"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CachedUserDetailsServiceTests {
+
+    @Test
+    void lookupsAreCachedUntilEvicted() {
+        AtomicInteger lookups = new AtomicInteger();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CachedUserDetailsService service = new CachedUserDetailsService(username -> {
+            lookups.incrementAndGet();
+            if (username.startsWith("missing")) {
+                throw new UsernameNotFoundException("User not found with email: " + username);
+            }
+            return new User(username, "", List.of());
+        }, 100, Duration.ofMinutes(5), registry);
+
+        service.loadUserByUsername("a@example.com");
+        service.loadUserByUsername("a@example.com");
+        assertEquals(1, lookups.get());
+
+        service.evict("a@example.com");
+        service.loadUserByUsername("a@example.com");
+        assertEquals(2, lookups.get());
+
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("missing@example.com"));
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("missing@example.com"));
+        assertEquals(4, lookups.get());
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count());
+    }
+}
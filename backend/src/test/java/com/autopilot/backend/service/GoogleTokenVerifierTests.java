@@ -0,0 +1,71 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GoogleTokenVerifierTests {
+
+    private static final String CLIENT_ID = "test-client.apps.googleusercontent.com";
+
+    private HttpServer certsServer;
+    private final AtomicInteger certsRequests = new AtomicInteger();
+
+    @BeforeEach
+    void startCertsServer() throws Exception {
+        certsServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        certsServer.createContext("/certs", exchange -> {
+            certsRequests.incrementAndGet();
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Cache-Control", "public, max-age=3600");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        certsServer.start();
+    }
+
+    @AfterEach
+    void stopCertsServer() {
+        certsServer.stop(0);
+    }
+
+    @Test
+    void fetchesCertificatesOnceAcrossVerifications() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GoogleTokenVerifier verifier = new GoogleTokenVerifier(CLIENT_ID,
+                "http://127.0.0.1:" + certsServer.getAddress().getPort() + "/certs", registry);
+
+        // Well-formed token for this client whose signature matches no served key
+        String token = unsignedToken();
+        assertNull(verifier.verify(token));
+        assertNull(verifier.verify(token));
+
+        assertEquals(1, certsRequests.get());
+        assertEquals(2, registry.get("autopilot.auth.google.verify").tag("outcome", "invalid").timer().count());
+    }
+
+    private static String unsignedToken() {
+        long now = System.currentTimeMillis() / 1000;
+        String header = "{\"alg\":\"RS256\",\"kid\":\"test\",\"typ\":\"JWT\"}";
+        String payload = "{\"iss\":\"https://accounts.google.com\",\"aud\":\"" + CLIENT_ID
+                + "\",\"sub\":\"1\",\"email\":\"a@example.com\",\"iat\":" + now + ",\"exp\":" + (now + 3600) + "}";
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString("signature".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,79 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.autopilot.backend.config.APIConfig;
+
+class JsonPointerExtractorTests {
+
+    private static JsonPointerExtractor extract(String json, Map<String, String> pointers, int chunkSize) {
+        JsonPointerExtractor extractor = new JsonPointerExtractor(pointers);
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        for (int off = 0; off < bytes.length; off += chunkSize) {
+            extractor.feed(bytes, off, Math.min(chunkSize, bytes.length - off));
+        }
+        extractor.finish();
+        return extractor;
+    }
+
+    @Test
+    void extractsScalarsAndContainersAcrossChunkBoundaries() {
+        Map<String, String> pointers = new LinkedHashMap<>();
+        pointers.put("id", "/data/id");
+        pointers.put("second", "/items/1/name");
+        pointers.put("owner", "/data/owner");
+        pointers.put("slash", "/a~1b");
+
+        JsonPointerExtractor extractor = extract("{\"data\":{\"id\":42,\"owner\":{\"name\":\"ops\",\"tags\":[1,2]}},"
+                + "\"items\":[{\"name\":\"first\"},{\"name\":\"sécond\"}],\"a/b\":null}", pointers, 3);
+
+        assertNull(extractor.getError());
+        assertEquals("42", extractor.getValues().get("id"));
+        assertEquals("sécond", extractor.getValues().get("second"));
+        assertEquals("{\"name\":\"ops\",\"tags\":[1,2]}", extractor.getValues().get("owner"));
+        assertEquals("null", extractor.getValues().get("slash"));
+    }
+
+    @Test
+    void reportsMissingPointersAndInvalidJson() {
+        assertEquals("no value at /missing",
+                extract("{\"id\":1}", Map.of("id", "/id", "other", "/missing"), 64).getError());
+        assertTrue(extract("{\"id\":", Map.of("id", "/id"), 64).getError().startsWith("invalid JSON"));
+        assertThrows(IllegalArgumentException.class, () -> JsonPointerExtractor.validate(Map.of("id", "data/id")));
+        assertThrows(IllegalArgumentException.class, () -> JsonPointerExtractor.validate(Map.of("1d", "/id")));
+    }
+
+    @Test
+    void runVariablesAreSubstitutedIntoACopy() {
+        RunVariables variables = new RunVariables();
+        variables.putAll(Map.of("id", "42", "token", "t0k"));
+        APIConfig template = new APIConfig();
+        template.setUrl("https://api.example.com/items/${id}");
+        template.setHeaders(Map.of("Authorization", "Bearer ${token}"));
+        template.setBody(Map.of("ids", List.of("${id}", "${unset}")));
+
+        APIConfig resolved = variables.resolve(template);
+
+        assertEquals("https://api.example.com/items/42", resolved.getUrl());
+        assertEquals("Bearer t0k", resolved.getHeaders().get("Authorization"));
+        assertEquals(Map.of("ids", List.of("42", "${unset}")), resolved.getBody());
+        assertEquals("https://api.example.com/items/${id}", template.getUrl());
+
+        APIConfig plain = new APIConfig();
+        plain.setUrl("https://api.example.com/health");
+        APIConfig copy = variables.resolve(plain);
+        assertNotSame(plain, copy);
+        assertEquals(plain.getUrl(), copy.getUrl());
+    }
+}
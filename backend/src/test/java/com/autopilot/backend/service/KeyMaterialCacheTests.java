@@ -0,0 +1,82 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.List;
+
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyEncryptionContext;
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyPairResourceWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.autopilot.backend.config.ServerConfig;
+
+class KeyMaterialCacheTests {
+
+    @TempDir
+    Path tempDir;
+
+    private final KeyMaterialCache keyCache = new KeyMaterialCache(10, 60000);
+
+    private static void writeKey(Path path, String password) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        KeyPair keyPair = generator.generateKeyPair();
+        OpenSSHKeyEncryptionContext encryption = null;
+        if (password != null) {
+            encryption = new OpenSSHKeyEncryptionContext();
+            encryption.setCipherName("AES");
+            encryption.setCipherType("256");
+            encryption.setCipherMode("CTR");
+            encryption.setPassword(password);
+            encryption.setKdfRounds(2);
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            OpenSSHKeyPairResourceWriter.INSTANCE.writePrivateKey(keyPair, "test", encryption, out);
+        }
+    }
+
+    private static ServerConfig config(Path pem, String password) {
+        ServerConfig config = new ServerConfig();
+        config.setPrivateKeyPemFilepath(pem.toString());
+        config.setPemFilePassword(password);
+        return config;
+    }
+
+    @Test
+    void keysAreDecryptedOnceAndFilesAreNeverRewritten() throws Exception {
+        Path pem = tempDir.resolve("id_ecdsa");
+        writeKey(pem, "secret");
+        byte[] original = Files.readAllBytes(pem);
+        Path copy = Files.copy(pem, tempDir.resolve("copy_of_id_ecdsa"));
+
+        List<KeyPair> first = keyCache.load(config(pem, "secret"));
+        List<KeyPair> second = keyCache.load(config(copy, "secret"));
+
+        assertSame(first, second);
+        assertEquals(1, keyCache.size());
+        assertArrayEquals(original, Files.readAllBytes(pem));
+        assertThrows(IOException.class, () -> keyCache.load(config(pem, "wrong")));
+    }
+
+    @Test
+    void changedKeyFileIsReloaded() throws Exception {
+        Path pem = tempDir.resolve("id_ecdsa");
+        writeKey(pem, null);
+        List<KeyPair> before = keyCache.load(config(pem, null));
+
+        writeKey(pem, null);
+
+        assertNotSame(before, keyCache.load(config(pem, null)));
+    }
+}
@@ -0,0 +1,46 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class LoginThrottleTests {
+
+    @Test
+    void rejectsAccountOverItsLimitWithoutAffectingOthers() {
+        LoginThrottle throttle = new LoginThrottle(4096, 900, 3, 100);
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("alice@example.com", "10.0.0." + i);
+            throttle.recordFailure("alice@example.com");
+        }
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> throttle.acquire("ALICE@example.com", "10.0.0.9"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+
+        throttle.acquire("bob@example.com", "10.0.0.9");
+    }
+
+    @Test
+    void rejectsClientIpOverItsLimitAcrossAccounts() {
+        LoginThrottle throttle = new LoginThrottle(4096, 900, 100, 2);
+        throttle.acquire("a@example.com", "192.168.1.1");
+        throttle.acquire("b@example.com", "192.168.1.1");
+
+        assertThrows(ResponseStatusException.class, () -> throttle.acquire("c@example.com", "192.168.1.1"));
+        throttle.acquire("c@example.com", "192.168.1.2");
+    }
+
+    @Test
+    void successfulLoginsDoNotCountAgainstTheAccount() {
+        LoginThrottle throttle = new LoginThrottle(4096, 900, 3, 100);
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("alice@example.com", "10.0.0." + i);
+        }
+        throttle.recordFailure("alice@example.com");
+        throttle.acquire("alice@example.com", "10.0.0.9");
+    }
+}
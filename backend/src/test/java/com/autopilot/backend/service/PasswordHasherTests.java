@@ -0,0 +1,46 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+class PasswordHasherTests {
+
+    @Test
+    void hashesOnThePoolAndShedsWhenItIsFull() throws Exception {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+        try {
+            PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(4), pool, 5000);
+            String hash = hasher.encode("secret");
+            assertTrue(hasher.matches("secret", hash));
+
+            // Occupy the only thread and the only queue slot
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            pool.submit(() -> {
+                started.countDown();
+                return release.await(5, TimeUnit.SECONDS);
+            });
+            started.await(5, TimeUnit.SECONDS);
+            pool.submit(() -> release.await(5, TimeUnit.SECONDS));
+
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> hasher.matches("secret", hash));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+            release.countDown();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.autopilot.backend.loader.ConfigLoader;
+import com.autopilot.backend.loader.ExecutionPlan;
+import com.autopilot.backend.model.Run;
+import com.autopilot.backend.model.RunCheckpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class RunCheckpointServiceTests {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutionPlan plan(Path... scripts) throws Exception {
+        StringBuilder tasks = new StringBuilder();
+        for (Path script : scripts) {
+            if (tasks.length() > 0) {
+                tasks.append(',');
+            }
+            tasks.append("{\"type\":\"shell\",\"config\":{\"shellScriptFilepath\":")
+                    .append(mapper.writeValueAsString(script.toString())).append("}}");
+        }
+        return ConfigLoader.compile(mapper.readTree("{\"post\":[" + tasks + "]}"));
+    }
+
+    @Test
+    void skipsCompletedTasksAndCheckpointsSuccesses() throws Exception {
+        Path first = Files.writeString(tempDir.resolve("first.sh"), "echo 1");
+        Path second = Files.writeString(tempDir.resolve("second.sh"), "echo 2");
+        ExecutionPlan plan = plan(first, second);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+        TaskSkipPolicy policy = new RunCheckpointService(mongoTemplate, 7)
+                .begin(new Run("run-2", "a@example.com", "run-1"), plan, Set.of("post#0"));
+
+        assertTrue(policy.isUpToDate(plan.getPhase("post").getTasks().get(0)));
+        assertFalse(policy.isUpToDate(plan.getPhase("post").getTasks().get(1)));
+
+        policy.onSucceeded(plan.getPhase("post").getTasks().get(1));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(RunCheckpoint.class));
+        assertEquals("post#1", update.getValue().getUpdateObject()
+                .get("$addToSet", Document.class).get("completed"));
+    }
+
+    @Test
+    void reportsTasksWhoseInputFilesChanged() throws Exception {
+        Path first = Files.writeString(tempDir.resolve("first.sh"), "echo 1");
+        Path second = Files.writeString(tempDir.resolve("second.sh"), "echo 2");
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        new RunCheckpointService(mongoTemplate, 7).begin(new Run("run-1", "a@example.com"), plan(first, second),
+                Set.of());
+        ArgumentCaptor<RunCheckpoint> saved = ArgumentCaptor.forClass(RunCheckpoint.class);
+        verify(mongoTemplate).save(saved.capture());
+
+        assertEquals(List.of(), RunCheckpointService.changedTasks(saved.getValue(), plan(first, second)));
+
+        Files.writeString(second, "echo 2 changed");
+        assertEquals(List.of("post#1"), RunCheckpointService.changedTasks(saved.getValue(), plan(first, second)));
+        assertEquals(List.of("post#1"), RunCheckpointService.changedTasks(saved.getValue(), plan(first)));
+    }
+}
@@ -0,0 +1,99 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.autopilot.backend.model.Run;
+
+class RunEventStreamTests {
+
+    private final ExecutorService sender = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        sender.shutdownNow();
+    }
+
+    /** Records what was sent and how it ended; sends block until {@code release} opens. */
+    private static class RecordingEmitter extends SseEmitter {
+        final CountDownLatch release;
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final CountDownLatch ended = new CountDownLatch(1);
+        volatile boolean failed;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder event = new StringBuilder();
+            builder.build().forEach(part -> event.append(part.getData()));
+            sent.add(event.toString());
+        }
+
+        @Override
+        public void complete() {
+            ended.countDown();
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failed = true;
+            ended.countDown();
+        }
+    }
+
+    @Test
+    void stalledClientDoesNotBlockPublishingAndIsDisconnected() throws Exception {
+        RunEventStream events = new RunEventStream("run", 4, 8, sender);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(release);
+        events.subscribe(stalled);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            events.onTaskOutput("pre", 0, "line " + i);
+        }
+        events.close(new Run("run", "owner"));
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 1);
+
+        release.countDown();
+        assertTrue(stalled.ended.await(5, TimeUnit.SECONDS));
+        assertTrue(stalled.failed);
+    }
+
+    @Test
+    void lateSubscriberGetsReplayThenCompletes() throws Exception {
+        RunEventStream events = new RunEventStream("run", 2, 8, sender);
+        events.onPhaseStart("pre");
+        events.onPhaseFinish("pre");
+        events.close(new Run("run", "owner"));
+
+        RecordingEmitter late = new RecordingEmitter(new CountDownLatch(0));
+        events.subscribe(late);
+
+        assertTrue(late.ended.await(5, TimeUnit.SECONDS));
+        assertFalse(late.failed);
+        assertEquals(2, late.sent.size());
+        assertTrue(late.sent.get(1).contains("run-finish"), late.sent.toString());
+    }
+}
@@ -0,0 +1,62 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.autopilot.backend.model.Run;
+import com.autopilot.backend.model.RunRecord;
+import com.autopilot.backend.model.TaskResult;
+
+class RunHistoryServiceTests {
+
+    @Test
+    void compressesAndTruncatesOutput() {
+        String output = "line\n".repeat(1000);
+        assertEquals(output, RunHistoryService.decompress(RunHistoryService.compress(output, 10_000)));
+
+        String truncated = RunHistoryService.decompress(RunHistoryService.compress(output, 10));
+        assertTrue(truncated.startsWith("line\nline\n\n⚠️ Output truncated"));
+    }
+
+    @Test
+    void recorderKeepsTasksInPlanOrder() {
+        RunRecorder recorder = new RunRecorder(TaskListener.NONE, 1000);
+        recorder.onPhaseStart("pre");
+        recorder.onTaskFinish("pre", new TaskResult(1, "b", "api", TaskResult.Status.SUCCEEDED, "ok", 5));
+        recorder.onTaskFinish("pre", new TaskResult(0, "a", "db", TaskResult.Status.FAILED, "boom", 7));
+        recorder.onPhaseStart("post");
+        recorder.onTaskFinish("post", new TaskResult(0, "c", "shell", TaskResult.Status.SKIPPED, "", 0));
+
+        List<RunRecord.TaskRecord> tasks = recorder.getTasks();
+        assertEquals(List.of("a", "b", "c"), tasks.stream().map(RunRecord.TaskRecord::getTaskId).toList());
+        assertEquals("boom", RunHistoryService.decompress(tasks.get(0).getOutput()));
+    }
+
+    @Test
+    void historyPagesLeaveOutputsOutUnlessAsked() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(RunRecord.class))).thenReturn(List.of());
+        RunHistoryService history = new RunHistoryService(mongoTemplate, true, 30, 1000);
+
+        history.findRuns("a@example.com", Run.Status.FAILED, null, null, false, 0, 20);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(RunRecord.class));
+        assertEquals(new Document("output", 0).append("tasks.output", 0), query.getValue().getFieldsObject());
+        assertEquals("a@example.com", query.getValue().getQueryObject().get("owner"));
+        assertEquals(20, query.getValue().getLimit());
+    }
+}
@@ -0,0 +1,166 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyPairResourceWriter;
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.common.session.ConnectionService;
+import org.apache.sshd.common.session.helpers.AbstractConnectionService;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.auth.pubkey.AcceptAllPublickeyAuthenticator;
+import org.apache.sshd.server.command.AbstractCommandSupport;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.autopilot.backend.config.ServerConfig;
+
+class ShellExecutorTests {
+
+    @TempDir
+    Path tempDir;
+
+    private Path home;
+    private SshServer server;
+    private SshSessionPool sessionPool;
+    private ShellExecutor shellExecutor;
+
+    /**
+     * Runs exec requests with the local shell, in the same directory SFTP writes
+     * to, each in a session of its own as sshd does.
+     */
+    private class LocalCommand extends AbstractCommandSupport {
+
+        LocalCommand(String command) {
+            super(command, null);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Process process = new ProcessBuilder("setsid", "sh", "-c", getCommand())
+                        .directory(home.toFile())
+                        .redirectErrorStream(true)
+                        .start();
+                OutputStream out = getOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = process.getInputStream().read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+                onExit(process.waitFor());
+            } catch (Exception e) {
+                onExit(-1, e.getMessage());
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        home = Files.createDirectory(tempDir.resolve("home"));
+        server = SshServer.setUpDefaultServer();
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(tempDir.resolve("hostkey.ser")));
+        server.setPublickeyAuthenticator(AcceptAllPublickeyAuthenticator.INSTANCE);
+        server.setFileSystemFactory(new VirtualFileSystemFactory(home));
+        server.setSubsystemFactories(List.of(new SftpSubsystemFactory()));
+        server.setCommandFactory((channel, command) -> new LocalCommand(command));
+        server.start();
+
+        KeyMaterialCache keyCache = new KeyMaterialCache(10, 60000);
+        sessionPool = new SshSessionPool(keyCache, 10000, 60000);
+        shellExecutor = new ShellExecutor(sessionPool, keyCache, 10000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        sessionPool.close();
+        server.stop(true);
+    }
+
+    private ServerConfig config(String script) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        Path pem = tempDir.resolve("id_rsa");
+        try (OutputStream out = Files.newOutputStream(pem)) {
+            OpenSSHKeyPairResourceWriter.INSTANCE.writePrivateKey(keyPair, "test", null, out);
+        }
+        Path scriptFile = tempDir.resolve("script.sh");
+        Files.writeString(scriptFile, script);
+
+        ServerConfig config = new ServerConfig();
+        config.setServerIp("localhost");
+        config.setServerPort(server.getPort());
+        config.setServerUsername("deploy");
+        config.setPrivateKeyPemFilepath(pem.toString());
+        config.setShellScriptFilepath(scriptFile.toString());
+        return config;
+    }
+
+    @Test
+    void tasksReuseOnePooledSessionPerHost() throws Exception {
+        ServerConfig config = config("echo hello\necho oops >&2\n");
+        List<String> lines = new CopyOnWriteArrayList<>();
+
+        assertEquals("✅ Shell script executed successfully.", shellExecutor.runShellFromConfig(config, lines::add));
+        assertEquals("✅ Shell script executed successfully.", shellExecutor.runShellFromConfig(config, lines::add));
+
+        assertEquals(List.of("hello", "oops", "hello", "oops"), lines);
+        assertEquals(1, server.getActiveSessions().size());
+        assertEquals(1, sessionPool.getOpenSessions().size());
+        try (var remaining = Files.list(home)) {
+            assertEquals(0, remaining.count(), "uploaded scripts are removed after running");
+        }
+    }
+
+    @Test
+    void nonZeroExitFailsTheTask() throws Exception {
+        ServerConfig config = config("echo failing\nexit 3\n");
+
+        IOException e = assertThrows(IOException.class, () -> shellExecutor.runShellFromConfig(config));
+
+        assertTrue(e.getMessage().contains("exit code: 3"), e.getMessage());
+    }
+
+    @Test
+    void cancellingKillsTheScriptAndClosesEveryChannel() throws Exception {
+        ServerConfig config = config("echo started\nsleep 10\n");
+        Cancellation cancellation = new Cancellation();
+
+        IOException e = assertThrows(IOException.class, () -> shellExecutor.runShellFromConfig(config, line -> {
+            if (line.equals("started")) {
+                cancellation.cancel(Cancellation.Reason.CANCELLED);
+            }
+        }, cancellation));
+
+        assertTrue(e.getMessage().contains("aborted"), e.getMessage());
+        try (SshSessionPool.Lease lease = sessionPool.acquire(config)) {
+            AbstractConnectionService connections = (AbstractConnectionService) lease.getSession()
+                    .getService(ConnectionService.class);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!connections.getChannels().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(connections.getChannels().isEmpty(), "channels left open: " + connections.getChannels());
+        }
+        try (var remaining = Files.list(home)) {
+            assertEquals(0, remaining.count(), "the kill removes the uploaded script");
+        }
+    }
+}
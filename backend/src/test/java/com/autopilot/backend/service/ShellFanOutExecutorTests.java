@@ -0,0 +1,94 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.autopilot.backend.config.ServerConfig;
+import com.autopilot.backend.model.HostResult;
+import com.autopilot.backend.model.TaskResult;
+
+class ShellFanOutExecutorTests {
+
+    private ShellExecutor shellExecutor;
+    private ExecutorService hostExecutor;
+    private ShellFanOutExecutor fanOut;
+
+    @BeforeEach
+    void setUp() {
+        shellExecutor = mock(ShellExecutor.class);
+        hostExecutor = Executors.newFixedThreadPool(8);
+        fanOut = new ShellFanOutExecutor(shellExecutor, hostExecutor, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hostExecutor.shutdownNow();
+    }
+
+    private static ServerConfig config(List<String> hosts) {
+        ServerConfig config = new ServerConfig();
+        config.setHosts(hosts);
+        config.setShellScriptFilepath("deploy.sh");
+        return config;
+    }
+
+    @Test
+    void parallelismIsBoundedPerTask() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(shellExecutor.runOnHost(any(ServerConfig.class), any(), any(Cancellation.class))).thenAnswer(invocation -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            active.decrementAndGet();
+            return "✅ Shell script executed successfully.";
+        });
+        ServerConfig config = config(List.of("h1", "h2", "h3", "h4", "h5", "h6"));
+        config.setMaxParallelHosts(2);
+
+        ShellFanOutExecutor.Report report = fanOut.run(config, line -> {
+        });
+
+        assertTrue(report.isSucceeded());
+        assertEquals(6, report.count(TaskResult.Status.SUCCEEDED));
+        assertTrue(peak.get() <= 2, "peak parallelism " + peak.get());
+    }
+
+    @Test
+    void failedCanaryStopsTheRollout() throws Exception {
+        when(shellExecutor.runOnHost(any(ServerConfig.class), any(), any(Cancellation.class))).thenAnswer(invocation -> {
+            ServerConfig host = invocation.getArgument(0);
+            if (host.getServerIp().equals("h1")) {
+                throw new IOException("❌ Shell script execution failed with exit code: 1");
+            }
+            return "✅ Shell script executed successfully.";
+        });
+        ServerConfig config = config(List.of("h1", "h2", "h3", "h4"));
+        config.setCanaryHosts(1);
+        config.setWaveSize(2);
+
+        ShellFanOutExecutor.Report report = fanOut.run(config, line -> {
+        });
+
+        assertFalse(report.isSucceeded());
+        assertEquals(List.of("FAILED", "SKIPPED", "SKIPPED", "SKIPPED"), report.getResults().stream()
+                .map(HostResult::getStatus).map(Enum::name).collect(Collectors.toList()));
+        assertEquals(List.of(List.of("h1"), List.of("h2", "h3"), List.of("h4")),
+                ShellFanOutExecutor.waves(List.of("h1", "h2", "h3", "h4"), 1, 2));
+        assertTrue(report.format().contains("⚠️ Rollout stopped"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.autopilot.backend.config.DBConfig;
+
+class SqlExecutorTests {
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DataSourceRegistry registry;
+    private SqlExecutor sqlExecutor;
+    private DBConfig config;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new DataSourceRegistry(2, 5000, 60000, 60000, meterRegistry);
+        sqlExecutor = new SqlExecutor(registry, 2, 3);
+        config = new DBConfig();
+        config.setDbUrl("jdbc:h2:mem:" + tempDir.getFileName() + ";DB_CLOSE_DELAY=-1");
+        config.setDbUsername("sa");
+        config.setDbPassword("");
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    private int count(String table) throws Exception {
+        try (Connection conn = registry.getConnection(config);
+                Statement statement = conn.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void tasksAgainstTheSameTargetShareOnePool() throws Exception {
+        Path schema = tempDir.resolve("schema.sql");
+        Files.writeString(schema, "CREATE TABLE items (id INT PRIMARY KEY, name VARCHAR(20));\n");
+        Path seed = tempDir.resolve("seed.sql");
+        Files.writeString(seed, "INSERT INTO items VALUES (1, 'a');\nINSERT INTO items VALUES (2, 'b');\n");
+
+        sqlExecutor.execute(schema.toString(), config);
+        sqlExecutor.execute(seed.toString(), config);
+
+        assertEquals(2, count("items"));
+        List<Map<String, Object>> stats = registry.getPoolStats();
+        assertEquals(1, stats.size());
+        assertEquals(0, stats.get(0).get("active"));
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").gauge());
+    }
+
+    @Test
+    void changedPasswordDoesNotCloseThePoolInUse() throws Exception {
+        DBConfig otherPassword = new DBConfig();
+        otherPassword.setDbUrl(config.getDbUrl());
+        otherPassword.setDbUsername("sa");
+        otherPassword.setDbPassword("wrong");
+
+        try (Connection inUse = registry.getConnection(config)) {
+            assertThrows(SQLException.class, () -> registry.getConnection(otherPassword).close());
+            assertTrue(inUse.isValid(1));
+        }
+        assertEquals(2, registry.getPoolStats().size());
+    }
+
+    @Test
+    void dmlIsBatchedAndReported() throws Exception {
+        Path script = tempDir.resolve("migration.sql");
+        Files.writeString(script, String.join("\n",
+                "-- seed data",
+                "CREATE TABLE notes (id INT PRIMARY KEY, body VARCHAR(50));",
+                "INSERT INTO notes VALUES (1, 'semi;colon');",
+                "INSERT INTO notes VALUES (2, 'it''s'); INSERT INTO notes VALUES (3, 'c');",
+                "/* block; comment */",
+                "UPDATE notes SET body = 'x' WHERE id > 1;",
+                "INSERT INTO notes VALUES (4, 'no trailing delimiter')"));
+
+        String summary = sqlExecutor.execute(script.toString(), config);
+
+        assertEquals(4, count("notes"));
+        assertTrue(summary.startsWith("6 statements, 6 rows affected"), summary);
+    }
+
+    @Test
+    void continueOnErrorSkipsFailingStatements() throws Exception {
+        Path script = tempDir.resolve("legacy.sql");
+        Files.writeString(script, String.join("\n",
+                "CREATE TABLE legacy (id INT PRIMARY KEY);",
+                "INSERT INTO legacy VALUES (1);",
+                "INSERT INTO legacy VALUES (1);",
+                "INSERT INTO legacy VALUES (2);"));
+        config.setContinueOnError(true);
+
+        String summary = sqlExecutor.execute(script.toString(), config);
+
+        assertEquals(2, count("legacy"));
+        assertTrue(summary.contains("1 statements failed"), summary);
+    }
+}
@@ -0,0 +1,50 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SqlStatementSplitterTests {
+
+    private static List<String> split(String script) throws Exception {
+        SqlStatementSplitter splitter = new SqlStatementSplitter(new BufferedReader(new StringReader(script)));
+        List<String> statements = new ArrayList<>();
+        String sql;
+        while ((sql = splitter.next()) != null) {
+            statements.add(sql);
+        }
+        return statements;
+    }
+
+    @Test
+    void plsqlBlocksKeepInnerSemicolonsUntilSlash() throws Exception {
+        List<String> statements = split(String.join("\n",
+                "CREATE OR REPLACE PROCEDURE bump AS",
+                "BEGIN",
+                "  UPDATE counters SET n = n + 1; -- inner statement",
+                "END;",
+                "/",
+                "SELECT /*+ FULL(t) */ * FROM t;"));
+
+        assertEquals(List.of(
+                "CREATE OR REPLACE PROCEDURE bump AS\nBEGIN\n  UPDATE counters SET n = n + 1;\nEND;",
+                "SELECT /*+ FULL(t) */ * FROM t"), statements);
+    }
+
+    @Test
+    void literalsAndCommentsDoNotSplit() throws Exception {
+        List<String> statements = split("INSERT INTO t VALUES ('a;\nb', \"x;y\"); /* ; */ ;; DELETE FROM t");
+
+        assertEquals(List.of("INSERT INTO t VALUES ('a;\nb', \"x;y\")", "DELETE FROM t"), statements);
+    }
+
+    @Test
+    void droppedCommentsStillSeparateTokens() throws Exception {
+        assertEquals(List.of("INSERT INTO t VALUES(1)"), split("INSERT INTO t/*c*/VALUES(1);"));
+    }
+}
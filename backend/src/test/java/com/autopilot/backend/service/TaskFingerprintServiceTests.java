@@ -0,0 +1,58 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.autopilot.backend.loader.ConfigLoader;
+import com.autopilot.backend.loader.PlannedTask;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TaskFingerprintServiceTests {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    private static PlannedTask task(String json) throws Exception {
+        return ConfigLoader.compile(mapper.readTree("{\"basic\":[" + json + "]}"))
+                .getPhase("basic").getTasks().get(0);
+    }
+
+    @Test
+    void followsScriptContentButNotKeyOrder() throws Exception {
+        Path script = tempDir.resolve("deploy.sh");
+        Files.writeString(script, "echo one");
+        String shell = "{\"type\":\"shell\",\"config\":{\"serverIp\":\"10.0.0.1\",\"shellScriptFilepath\":\""
+                + script.toString().replace("\\", "\\\\") + "\"}}";
+
+        String first = TaskFingerprintService.fingerprint(task(shell));
+        assertEquals(first, TaskFingerprintService.fingerprint(task(shell)));
+
+        Files.writeString(script, "echo two");
+        assertNotEquals(first, TaskFingerprintService.fingerprint(task(shell)));
+
+        Files.delete(script);
+        assertNull(TaskFingerprintService.fingerprint(task(shell)));
+    }
+
+    @Test
+    void apiBodyKeyOrderDoesNotMatter() throws Exception {
+        String a = TaskFingerprintService.fingerprint(task(
+                "{\"type\":\"api\",\"config\":{\"url\":\"http://x\",\"body\":{\"a\":1,\"b\":2}}}"));
+        String b = TaskFingerprintService.fingerprint(task(
+                "{\"type\":\"api\",\"config\":{\"body\":{\"b\":2,\"a\":1},\"url\":\"http://x\"}}"));
+        String c = TaskFingerprintService.fingerprint(task(
+                "{\"type\":\"api\",\"config\":{\"url\":\"http://x\",\"body\":{\"a\":1,\"b\":3}}}"));
+
+        assertEquals(a, b);
+        assertNotEquals(a, c);
+    }
+}
@@ -0,0 +1,278 @@
+package com.autopilot.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.autopilot.backend.config.APIConfig;
+import com.autopilot.backend.config.ServerConfig;
+import com.autopilot.backend.loader.ConfigLoader;
+import com.autopilot.backend.loader.ExecutionPlan;
+import com.autopilot.backend.loader.PlannedTask;
+
+class TaskProcessorServiceTests {
+
+    @TempDir
+    Path tempDir;
+
+    private ShellExecutor shellExecutor;
+    private ApiExecutor apiExecutor;
+    private ExecutorService taskExecutor;
+    private ScheduledExecutorService timeoutScheduler;
+    private SimpleMeterRegistry meterRegistry;
+    private TaskProcessorService processor;
+
+    @BeforeEach
+    void setUp() {
+        shellExecutor = mock(ShellExecutor.class);
+        apiExecutor = mock(ApiExecutor.class);
+        taskExecutor = Executors.newFixedThreadPool(4);
+        timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+        meterRegistry = new SimpleMeterRegistry();
+        processor = new TaskProcessorService(mock(SqlExecutor.class), shellExecutor,
+                mock(ShellFanOutExecutor.class), apiExecutor,
+                taskExecutor, new TaskMetrics(meterRegistry), timeoutScheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskExecutor.shutdownNow();
+        timeoutScheduler.shutdownNow();
+    }
+
+    private String writeConfig(String json) throws Exception {
+        Path config = tempDir.resolve("config.json");
+        Files.writeString(config, json);
+        return config.toString();
+    }
+
+    private static String shellTask(String id, String dependsOn) {
+        return "{\"type\":\"shell\",\"id\":\"" + id + "\""
+                + (dependsOn != null ? ",\"dependsOn\":" + dependsOn : "")
+                + ",\"config\":{\"shellScriptFilepath\":\"" + id + "\"}}";
+    }
+
+    @Test
+    void independentTasksRunConcurrently() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(shellExecutor.runShellFromConfig(any(ServerConfig.class), any(), any(Cancellation.class))).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            return bothStarted.await(5, TimeUnit.SECONDS) ? "✅ ok" : "⌛ ran alone";
+        });
+
+        String output = processor.processTasks(writeConfig("{\"pre\":["
+                + shellTask("a", "[]") + "," + shellTask("b", "[]") + "]}"), "pre");
+
+        assertEquals(2, output.split("✅ ok", -1).length - 1, output);
+    }
+
+    @Test
+    void dependenciesRunInOrderAndOutputKeepsDeclarationOrder() throws Exception {
+        List<String> executed = new CopyOnWriteArrayList<>();
+        when(shellExecutor.runShellFromConfig(any(ServerConfig.class), any(), any(Cancellation.class))).thenAnswer(invocation -> {
+            String id = invocation.getArgument(0, ServerConfig.class).getShellScriptFilepath();
+            executed.add(id);
+            return "✅ " + id;
+        });
+
+        String output = processor.processTasks(writeConfig("{\"post\":["
+                + shellTask("last", "[\"middle\"]") + ","
+                + shellTask("middle", "[\"first\"]") + ","
+                + shellTask("first", "[]") + "]}"), "post");
+
+        assertEquals(List.of("first", "middle", "last"), executed);
+        assertTrue(output.indexOf("Task #1 [last]") < output.indexOf("Task #2 [middle]"), output);
+        assertTrue(output.indexOf("Task #2 [middle]") < output.indexOf("Task #3 [first]"), output);
+    }
+
+    @Test
+    void dependentsOfFailedTaskAreSkipped() throws Exception {
+        when(shellExecutor.runShellFromConfig(any(ServerConfig.class), any(), any(Cancellation.class)))
+                .thenThrow(new java.io.IOException("❌ boom"));
+
+        String output = processor.processTasks(writeConfig("{\"pre\":["
+                + shellTask("a", "[]") + "," + shellTask("b", "[\"a\"]") + "]}"), "pre");
+
+        assertTrue(output.contains("❌ Task failed: ❌ boom"), output);
+        assertTrue(output.contains("⏭️ Skipped: dependency a did not succeed"), output);
+    }
+
+    @Test
+    void tasksWithoutDependsOnRunInOrderEvenAfterAFailure() throws Exception {
+        List<String> executed = new CopyOnWriteArrayList<>();
+        when(shellExecutor.runShellFromConfig(any(ServerConfig.class), any(), any(Cancellation.class))).thenAnswer(invocation -> {
+            String id = invocation.getArgument(0, ServerConfig.class).getShellScriptFilepath();
+            executed.add(id);
+            if ("b".equals(id)) {
+                throw new java.io.IOException("❌ boom");
+            }
+            return "✅ " + id;
+        });
+
+        String output = processor.processTasks(writeConfig("{\"pre\":["
+                + shellTask("a", null) + "," + shellTask("b", null) + "," + shellTask("c", null) + "]}"), "pre");
+
+        assertEquals(List.of("a", "b", "c"), executed);
+        assertTrue(output.contains("❌ Task failed: ❌ boom"), output);
+        assertTrue(output.contains("✅ c"), output);
+        assertFalse(output.contains("⏭️ Skipped"), output);
+    }
+
+    @Test
+    void upToDateTasksAreNotRunButTheirDependentsAre() throws Exception {
+        List<String> executed = new CopyOnWriteArrayList<>();
+        when(shellExecutor.runShellFromConfig(any(ServerConfig.class), any(), any(Cancellation.class))).thenAnswer(invocation -> {
+            executed.add(invocation.getArgument(0, ServerConfig.class).getShellScriptFilepath());
+            return "✅ ok";
+        });
+        List<String> succeeded = new CopyOnWriteArrayList<>();
+        TaskSkipPolicy skipA = new TaskSkipPolicy() {
+            @Override
+            public boolean isUpToDate(PlannedTask task) {
+                return "a".equals(task.getId());
+            }
+
+            @Override
+            public void onSucceeded(PlannedTask task) {
+                succeeded.add(task.getId());
+            }
+        };
+
+        ExecutionPlan plan = ConfigLoader.compile(ConfigLoader.loadAllTasks(writeConfig("{\"pre\":["
+                + shellTask("a", null) + "," + shellTask("b", "[\"a\"]") + "]}")));
+        String output = processor.processTasks(plan, "pre", TaskListener.NONE, skipA);
+
+        assertEquals(List.of("b"), executed);
+        assertEquals(List.of("b"), succeeded);
+        assertTrue(output.contains("⏭️ Up to date"), output);
+    }
+
+    @Test
+    void timedOutTaskIsAbortedAndItsDependentsSkipped() throws Exception {
+        when(shellExecutor.runShellFromConfig(any(ServerConfig.class), any(), any(Cancellation.class)))
+                .thenAnswer(invocation -> {
+                    CountDownLatch aborted = new CountDownLatch(1);
+                    invocation.getArgument(2, Cancellation.class).onCancel(aborted::countDown);
+                    aborted.await(5, TimeUnit.SECONDS);
+                    throw new java.io.IOException("❌ Shell script aborted on host");
+                });
+
+        String output = processor.processTasks(writeConfig("{\"pre\":["
+                + "{\"type\":\"shell\",\"id\":\"slow\",\"config\":{\"shellScriptFilepath\":\"slow\","
+                + "\"timeoutSeconds\":1}}," + shellTask("next", "[\"slow\"]") + "]}"), "pre");
+
+        assertTrue(output.contains("⌛ Task timed out after 1s"), output);
+        assertTrue(output.contains("⏭️ Skipped: dependency slow did not succeed"), output);
+        // Counted once, as a timeout, not also under the aborted script's IOException
+        assertEquals(1, meterRegistry.find("autopilot.task.errors").counters().size());
+        assertEquals(1, meterRegistry.get("autopilot.task.errors").tag("error", "timeout").counter().count());
+    }
+
+    @Test
+    void cancelledRunSkipsRemainingTasks() throws Exception {
+        Cancellation cancellation = new Cancellation();
+        when(shellExecutor.runShellFromConfig(any(ServerConfig.class), any(), any(Cancellation.class)))
+                .thenAnswer(invocation -> {
+                    cancellation.cancel(Cancellation.Reason.CANCELLED);
+                    return "✅ ok";
+                });
+
+        ExecutionPlan plan = ConfigLoader.compile(ConfigLoader.loadAllTasks(writeConfig("{\"pre\":["
+                + shellTask("a", null) + "," + shellTask("b", null) + "]}")));
+        String output = processor.processTasks(plan, "pre", TaskListener.NONE, TaskSkipPolicy.NONE, cancellation);
+
+        assertTrue(output.contains("⏭️ Skipped: run cancelled"), output);
+    }
+
+    @Test
+    void openCircuitIsReportedAsSkippedNotAsABadUrl() throws Exception {
+        APIConfig rejected = new APIConfig();
+        rejected.setResponseCode(ApiExecutor.CIRCUIT_OPEN);
+        rejected.setResponseMessage("⚡ Circuit open for http://h");
+        when(apiExecutor.executeAsync(any(APIConfig.class), any(Cancellation.class)))
+                .thenReturn(CompletableFuture.completedFuture(rejected));
+
+        String output = processor.processTasks(writeConfig("{\"pre\":["
+                + "{\"type\":\"api\",\"id\":\"call\",\"config\":{\"url\":\"http://h\"}}]}"), "pre");
+
+        assertTrue(output.contains("❌ API call skipped: ⚡ Circuit open"), output);
+        assertFalse(output.contains("Incorrect URL"), output);
+        assertEquals(1, meterRegistry.get("autopilot.task.errors").tag("error", "circuit_open").counter().count());
+    }
+
+    @Test
+    void unexpectedApiFailureIsClassifiedByItsCause() throws Exception {
+        when(apiExecutor.executeAsync(any(APIConfig.class), any(Cancellation.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("bad header")));
+
+        String output = processor.processTasks(writeConfig("{\"pre\":["
+                + "{\"type\":\"api\",\"id\":\"call\",\"config\":{\"url\":\"http://h\"}}]}"), "pre");
+
+        assertTrue(output.contains("unexpected exception: bad header"), output);
+        assertEquals(1, meterRegistry.get("autopilot.task.errors").tag("error", "config").counter().count());
+    }
+
+    @Test
+    void responseBodiesStayWithTheRunUntilItClosesThem() throws Exception {
+        when(apiExecutor.executeAsync(any(APIConfig.class), any(Cancellation.class))).thenAnswer(invocation -> {
+            ApiResponseBody body = new ApiResponseBody("identity", StandardCharsets.UTF_8, 16, 1 << 20, tempDir, 8);
+            body.sink().write("a body too large for memory".getBytes(StandardCharsets.UTF_8));
+            body.finish();
+            APIConfig response = new APIConfig();
+            response.setResponseCode(200);
+            response.setResponseBody(body);
+            return CompletableFuture.completedFuture(response);
+        });
+        ExecutionPlan plan = ConfigLoader.compile(ConfigLoader.loadAllTasks(writeConfig("{\"pre\":["
+                + "{\"type\":\"api\",\"id\":\"call\",\"config\":{\"url\":\"http://h\"}}]}")));
+
+        RunResponseBodies bodies = new RunResponseBodies();
+        processor.processTasks(plan, "pre", TaskListener.NONE, TaskSkipPolicy.NONE, new Cancellation(),
+                new RunVariables(), bodies);
+        ApiResponseBody kept = bodies.get("pre", 1);
+        assertEquals(27, kept.getSize());
+        assertTrue(Files.exists(kept.getFile()));
+        try (InputStream in = kept.open()) {
+            assertEquals("a body too large for memory", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        bodies.close();
+        assertFalse(Files.exists(kept.getFile()));
+
+        // Without a run to keep them, bodies are deleted as soon as their task is done
+        processor.processTasks(plan, "pre", TaskListener.NONE);
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.filter(file -> file.toString().endsWith(".body")).count());
+        }
+    }
+
+    @Test
+    void cyclesAreRejected() throws Exception {
+        String config = writeConfig("{\"pre\":["
+                + shellTask("a", "[\"b\"]") + "," + shellTask("b", "[\"a\"]") + "]}");
+
+        assertThrows(IllegalArgumentException.class, () -> processor.processTasks(config, "pre"));
+    }
+}
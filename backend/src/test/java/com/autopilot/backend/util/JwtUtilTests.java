@@ -0,0 +1,47 @@
+package com.autopilot.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+class JwtUtilTests {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 100);
+
+    @Test
+    void verifiedTokensAreServedFromTheCache() {
+        String token = jwtUtil.generateToken("user@example.com");
+
+        assertEquals("user@example.com", jwtUtil.getVerifiedSubject(token));
+        assertSame(jwtUtil.getClaims(token), jwtUtil.getClaims(token));
+        assertEquals("user@example.com", jwtUtil.extractUsername(token));
+    }
+
+    @Test
+    void invalidAndExpiredTokensAreRejected() {
+        String token = jwtUtil.generateToken("user@example.com");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        String expired = Jwts.builder()
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertNull(jwtUtil.getVerifiedSubject(tampered));
+        assertNull(jwtUtil.getVerifiedSubject(expired));
+        assertNull(jwtUtil.getVerifiedSubject(null));
+        assertFalse(jwtUtil.validateToken(""));
+    }
+}
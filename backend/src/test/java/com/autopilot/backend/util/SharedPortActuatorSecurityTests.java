@@ -0,0 +1,72 @@
+package com.autopilot.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.autopilot.backend.model.User;
+import com.autopilot.backend.service.CachedUserDetailsService;
+
+/** Actuator served on the API port, as when management.server.port is set to server.port. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+class SharedPortActuatorSecurityTests {
+
+    private static final int PORT = freePort();
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int serverPort;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @MockitoBean
+    private CachedUserDetailsService userDetailsService;
+
+    @DynamicPropertySource
+    static void sharedPort(DynamicPropertyRegistry registry) {
+        registry.add("server.port", () -> PORT);
+        registry.add("management.server.port", () -> PORT);
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int get(String path, String email, String role) throws Exception {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("unused");
+        user.setRole(role);
+        when(userDetailsService.loadUserByUsername(email)).thenReturn(user);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + serverPort + path))
+                .header("Cookie", "token=" + jwtUtil.generateToken(email))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Test
+    void onlyAdminsReachCircuitBreakers() throws Exception {
+        assertEquals(403, get("/actuator/circuitbreakers", "user@example.com", "USER"));
+        assertEquals(200, get("/actuator/circuitbreakers", "admin@example.com", "ADMIN"));
+    }
+}